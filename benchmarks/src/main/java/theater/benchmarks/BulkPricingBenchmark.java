@@ -0,0 +1,128 @@
+package theater.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import theater.AbstractPerformanceCalculator;
+import theater.CalculatorRegistry;
+import theater.PricingFormula;
+
+/**
+ * Compares the per-row cost of pricing a column of audiences one call at a time, with the
+ * branch-free bulk kernel, and with the same kernel written against the JDK Vector API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class BulkPricingBenchmark {
+    private static final int ROWS = 65_536;
+    private static final int MAX_AUDIENCE = 120;
+
+    @Param({"tragedy", "comedy", "history", "pastoral"})
+    private String type;
+
+    private AbstractPerformanceCalculator calculator;
+    private VectorPricingKernel vector;
+    private int[] audiences;
+    private int[] amounts;
+    private int[] credits;
+
+    /**
+     * Resolves the calculator, generates the audience sizes and checks that every kernel
+     * agrees with the calculator.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        calculator = CalculatorRegistry.getDefault().get(type);
+        vector = new VectorPricingKernel(formulaFor(type));
+        audiences = new int[ROWS];
+        amounts = new int[ROWS];
+        credits = new int[ROWS];
+        long state = 7L;
+        for (int i = 0; i < ROWS; i++) {
+            state = state * 6364136223846793005L + 1442695040888963407L;
+            audiences[i] = (int) ((state >>> 33) % MAX_AUDIENCE);
+        }
+        perRow();
+        final int[] expectedAmounts = amounts.clone();
+        final int[] expectedCredits = credits.clone();
+        vectorApi();
+        if (!Arrays.equals(expectedAmounts, amounts) || !Arrays.equals(expectedCredits, credits)) {
+            throw new IllegalStateException("Vector kernel disagrees with " + type);
+        }
+        bulk();
+        if (!Arrays.equals(expectedAmounts, amounts) || !Arrays.equals(expectedCredits, credits)) {
+            throw new IllegalStateException("Bulk kernel disagrees with " + type);
+        }
+    }
+
+    /**
+     * Prices each row with a call to the calculator.
+     *
+     * @return the amounts, so they are not eliminated
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int[] perRow() {
+        for (int i = 0; i < ROWS; i++) {
+            amounts[i] = calculator.amountFor(audiences[i]);
+            credits[i] = calculator.volumeCredits(audiences[i]);
+        }
+        return amounts;
+    }
+
+    /**
+     * Prices all rows with the calculator's bulk kernel.
+     *
+     * @return the amounts, so they are not eliminated
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int[] bulk() {
+        calculator.priceAll(audiences, 0, ROWS, amounts, credits);
+        return amounts;
+    }
+
+    /**
+     * Prices all rows with the explicit Vector API kernel.
+     *
+     * @return the amounts, so they are not eliminated
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int[] vectorApi() {
+        vector.priceAll(audiences, amounts, credits);
+        return amounts;
+    }
+
+    private static PricingFormula formulaFor(String type) {
+        switch (type) {
+            case "tragedy":
+                return PricingFormula.TRAGEDY;
+            case "comedy":
+                return PricingFormula.COMEDY;
+            case "history":
+                return PricingFormula.HISTORY;
+            case "pastoral":
+                return PricingFormula.PASTORAL;
+            default:
+                throw new IllegalArgumentException("Unknown play type: " + type);
+        }
+    }
+}
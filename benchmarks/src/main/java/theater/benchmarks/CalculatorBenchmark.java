@@ -0,0 +1,44 @@
+package theater.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import theater.AbstractPerformanceCalculator;
+import theater.Performance;
+import theater.Play;
+
+/**
+ * Measures pricing every performance of an invoice through the calculators.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculatorBenchmark {
+
+    /**
+     * Resolves the calculator per performance and computes its amount and credits.
+     *
+     * @param fixture the benchmark input
+     * @param blackhole sink for the results
+     */
+    @Benchmark
+    public void amountAndCredits(InvoiceFixture fixture, Blackhole blackhole) {
+        final Map<String, Play> plays = fixture.getPlays();
+        for (Performance performance : fixture.getInvoice().getPerformances()) {
+            final AbstractPerformanceCalculator calculator = AbstractPerformanceCalculator
+                    .createPerformanceCalculator(performance, plays.get(performance.getPlayID()));
+            blackhole.consume(calculator.amountFor(performance));
+            blackhole.consume(calculator.volumeCredits(performance));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package theater.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import theater.BinaryInvoiceFile;
+import theater.BinaryInvoiceWriter;
+import theater.Invoice;
+import theater.InvoiceReader;
+import theater.Performance;
+import theater.PlayCatalog;
+
+/**
+ * Compares reading the fixture invoice from JSON against reading it from the binary format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestionBenchmark {
+    private byte[] json;
+    private Path binary;
+
+    /**
+     * Writes the fixture invoice as JSON bytes and as a binary file.
+     *
+     * @param fixture the benchmark input
+     * @throws IOException if the binary file cannot be written
+     */
+    @Setup(Level.Trial)
+    public void setUp(InvoiceFixture fixture) throws IOException {
+        final Invoice invoice = fixture.getInvoice();
+        final StringBuilder text = new StringBuilder("[{\"customer\": \"")
+                .append(invoice.getCustomer()).append("\", \"performances\": [");
+        for (int i = 0; i < invoice.getPerformances().size(); i++) {
+            final Performance performance = invoice.getPerformances().get(i);
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append("{\"playID\": \"").append(performance.getPlayID())
+                    .append("\", \"audience\": ").append(performance.getAudience()).append('}');
+        }
+        text.append("]}]");
+        json = text.toString().getBytes(StandardCharsets.UTF_8);
+        binary = Files.createTempFile("invoices", ".bin");
+        final PlayCatalog catalog = fixture.getCatalog();
+        BinaryInvoiceWriter.convert(new ByteArrayInputStream(json), catalog, binary);
+    }
+
+    /**
+     * Deletes the binary file.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(binary);
+    }
+
+    /**
+     * Parses the JSON into invoice objects.
+     *
+     * @param blackhole sink for the results
+     */
+    @Benchmark
+    public void json(Blackhole blackhole) {
+        final InvoiceReader reader = new InvoiceReader(new ByteArrayInputStream(json));
+        while (reader.hasNext()) {
+            blackhole.consume(reader.next());
+        }
+    }
+
+    /**
+     * Walks the memory-mapped binary file.
+     *
+     * @param blackhole sink for the results
+     * @throws IOException if the file cannot be read
+     */
+    @Benchmark
+    public void binary(Blackhole blackhole) throws IOException {
+        try (BinaryInvoiceFile file = new BinaryInvoiceFile(binary)) {
+            while (file.next()) {
+                for (int i = 0; i < file.size(); i++) {
+                    blackhole.consume(file.getAudience(i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package theater.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import theater.Invoice;
+import theater.Performance;
+import theater.Play;
+import theater.PlayCatalog;
+
+/**
+ * Benchmark input: the sample invoice (3 performances) up to invoices with 100k performances.
+ * The data is generated deterministically so runs are comparable.
+ */
+@State(Scope.Benchmark)
+public class InvoiceFixture {
+    private static final int MAX_AUDIENCE = 120;
+    private static final long SEED = 42L;
+
+    @Param({"3", "1000", "100000"})
+    private int performances;
+
+    private Map<String, Play> plays;
+    private PlayCatalog catalog;
+    private Invoice invoice;
+
+    /**
+     * Builds the play map and an invoice with the requested number of performances.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        plays.put("othello", new Play("Othello", "tragedy"));
+        catalog = PlayCatalog.of(plays);
+
+        final String[] ids = {"hamlet", "as-like", "othello"};
+        final List<Performance> rows = new ArrayList<>(performances);
+        long state = SEED;
+        for (int i = 0; i < performances; i++) {
+            state = state * 6364136223846793005L + 1442695040888963407L;
+            final int audience = (int) ((state >>> 33) % MAX_AUDIENCE);
+            rows.add(new Performance(ids[i % ids.length], audience));
+        }
+        invoice = new Invoice("BigCo", rows);
+    }
+
+    public Map<String, Play> getPlays() {
+        return plays;
+    }
+
+    public PlayCatalog getCatalog() {
+        return catalog;
+    }
+
+    public Invoice getInvoice() {
+        return invoice;
+    }
+}
@@ -0,0 +1,105 @@
+package theater.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import theater.AbstractPerformanceCalculator;
+import theater.CalculatorRegistry;
+import theater.PriceSheet;
+import theater.PricingFormula;
+
+/**
+ * Compares the per-row cost of pricing through the built-in calculators, precomputed tables and
+ * calculators compiled from a price sheet with the same rules.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PricingTableBenchmark {
+    private static final int ROWS = 4096;
+    private static final int MAX_AUDIENCE = 120;
+    private static final int TABLE_SIZE = 200;
+
+    @Param({"tragedy", "comedy", "history", "pastoral"})
+    private String type;
+
+    private AbstractPerformanceCalculator formula;
+    private AbstractPerformanceCalculator table;
+    private AbstractPerformanceCalculator sheet;
+    private int[] audiences;
+
+    /**
+     * Resolves both calculators and generates the audience sizes.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        formula = CalculatorRegistry.getDefault().get(type);
+        table = CalculatorRegistry.getDefault().tabulated(TABLE_SIZE).get(type);
+        sheet = PriceSheet.of(Map.of(
+                "tragedy", PricingFormula.TRAGEDY, "comedy", PricingFormula.COMEDY,
+                "history", PricingFormula.HISTORY, "pastoral", PricingFormula.PASTORAL)).getRegistry().get(type);
+        audiences = new int[ROWS];
+        long state = 7L;
+        for (int i = 0; i < ROWS; i++) {
+            state = state * 6364136223846793005L + 1442695040888963407L;
+            audiences[i] = (int) ((state >>> 33) % MAX_AUDIENCE);
+        }
+    }
+
+    /**
+     * Prices each row with the formula calculator.
+     *
+     * @return a checksum of the amounts and credits
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long formula() {
+        return priceAll(formula);
+    }
+
+    /**
+     * Prices each row with the table-driven calculator.
+     *
+     * @return a checksum of the amounts and credits
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long table() {
+        return priceAll(table);
+    }
+
+    /**
+     * Prices each row with the calculator compiled from a price sheet.
+     *
+     * @return a checksum of the amounts and credits
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long sheet() {
+        return priceAll(sheet);
+    }
+
+    private long priceAll(AbstractPerformanceCalculator calculator) {
+        long result = 0;
+        for (int audience : audiences) {
+            result += calculator.amountFor(audience) + calculator.volumeCredits(audience);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,122 @@
+package theater.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import theater.HTMLStatementPrinter;
+import theater.LineFragmentCache;
+import theater.StatementEngine;
+import theater.StatementFormat;
+import theater.StatementPrinter;
+import theater.StatementWriter;
+
+/**
+ * Measures rendering a prepared statement as plain text and as HTML, and writing plain text as
+ * UTF-8 with and without a line cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RendererBenchmark {
+    private static final int LINE_CACHE_CAPACITY = 4096;
+
+    private StatementPrinter plainPrinter;
+    private StatementPrinter htmlPrinter;
+    private StatementEngine engine;
+    private StatementEngine cachedEngine;
+    private final StatementWriter writer = new StatementWriter();
+    private final CountingStream sink = new CountingStream();
+
+    /**
+     * Builds both printers once, so only {@code statement()} is measured.
+     *
+     * @param fixture the benchmark input
+     */
+    @Setup(Level.Trial)
+    public void setUp(InvoiceFixture fixture) {
+        plainPrinter = new StatementPrinter(fixture.getInvoice(), fixture.getPlays());
+        htmlPrinter = new HTMLStatementPrinter(fixture.getInvoice(), fixture.getPlays());
+        engine = new StatementEngine(fixture.getCatalog());
+        cachedEngine = engine.withFragmentCache(new LineFragmentCache(LINE_CACHE_CAPACITY));
+    }
+
+    /**
+     * Renders the plain-text statement.
+     *
+     * @return the rendered statement
+     */
+    @Benchmark
+    public String plainText() {
+        return plainPrinter.statement();
+    }
+
+    /**
+     * Renders the HTML statement.
+     *
+     * @return the rendered statement
+     */
+    @Benchmark
+    public String html() {
+        return htmlPrinter.statement();
+    }
+
+    /**
+     * Prices and writes the plain-text statement as UTF-8, formatting every line.
+     *
+     * @param fixture the benchmark input
+     * @return the number of bytes written
+     * @throws IOException never, the sink only counts
+     */
+    @Benchmark
+    public long writePlainText(InvoiceFixture fixture) throws IOException {
+        sink.count = 0;
+        writer.write(engine, fixture.getInvoice(), StatementFormat.PLAIN_TEXT, sink);
+        return sink.count;
+    }
+
+    /**
+     * Prices and writes the plain-text statement as UTF-8, copying repeated lines from the cache.
+     *
+     * @param fixture the benchmark input
+     * @return the number of bytes written
+     * @throws IOException never, the sink only counts
+     */
+    @Benchmark
+    public long writeCachedPlainText(InvoiceFixture fixture) throws IOException {
+        sink.count = 0;
+        writer.write(cachedEngine, fixture.getInvoice(), StatementFormat.PLAIN_TEXT, sink);
+        return sink.count;
+    }
+
+    /**
+     * A stream that discards its bytes and only counts them.
+     */
+    private static final class CountingStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package theater.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import theater.CalculatorRegistry;
+import theater.StatementData;
+import theater.StatementTotals;
+
+/**
+ * Measures building the computed row data for an invoice.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementDataBenchmark {
+
+    /**
+     * Builds the statement data for the fixture invoice.
+     *
+     * @param fixture the benchmark input
+     * @return the statement data, so it is not eliminated
+     */
+    @Benchmark
+    public StatementData construct(InvoiceFixture fixture) {
+        return new StatementData(fixture.getInvoice(), fixture.getPlays());
+    }
+
+    /**
+     * Builds the statement data against a catalog interned once up front.
+     *
+     * @param fixture the benchmark input
+     * @return the statement data, so it is not eliminated
+     */
+    @Benchmark
+    public StatementData constructWithCatalog(InvoiceFixture fixture) {
+        return new StatementData(fixture.getInvoice(), fixture.getCatalog());
+    }
+
+    /**
+     * Computes only the totals of the fixture invoice against the play map.
+     *
+     * @param fixture the benchmark input
+     * @return the total amount, so it is not eliminated
+     */
+    @Benchmark
+    public int totalsFromMap(InvoiceFixture fixture) {
+        return StatementTotals.of(fixture.getInvoice(), fixture.getPlays()).getTotalAmount();
+    }
+
+    /**
+     * Computes only the totals of the fixture invoice, with a reused accumulator.
+     *
+     * @param fixture the benchmark input
+     * @param totals  the per-thread accumulator
+     * @return the total amount, so it is not eliminated
+     */
+    @Benchmark
+    public int totalsOnly(InvoiceFixture fixture, TotalsState totals) {
+        return totals.totals.accumulate(fixture.getInvoice()).getTotalAmount();
+    }
+
+    /**
+     * Computes the totals through lazy statement data, which never builds the rows.
+     *
+     * @param fixture the benchmark input
+     * @return the total amount, so it is not eliminated
+     */
+    @Benchmark
+    public int lazyTotals(InvoiceFixture fixture) {
+        return StatementData.lazy(fixture.getInvoice(), fixture.getCatalog(), CalculatorRegistry.getDefault())
+                .totalAmount();
+    }
+
+    /**
+     * A totals accumulator kept per benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class TotalsState {
+        private StatementTotals totals;
+
+        /**
+         * Creates the accumulator against the fixture catalog.
+         *
+         * @param fixture the benchmark input
+         */
+        @Setup
+        public void setUp(InvoiceFixture fixture) {
+            totals = new StatementTotals(fixture.getCatalog());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package theater.benchmarks;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+import theater.PricingFormula;
+
+/**
+ * The {@link PricingFormula} bulk kernel written explicitly against the incubating JDK Vector
+ * API, kept here rather than in the core project so that the library never needs
+ * {@code --add-modules jdk.incubator.vector}. Rows left over after the last full vector are
+ * priced by the scalar kernel.
+ */
+final class VectorPricingKernel {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private final PricingFormula formula;
+
+    VectorPricingKernel(PricingFormula formula) {
+        this.formula = formula;
+    }
+
+    void priceAll(int[] audience, int[] amounts, int[] credits) {
+        final int base = formula.getBaseAmount();
+        final int perSeat = formula.getAmountPerSeat();
+        final int limit = formula.getThreshold();
+        final int step = formula.getStepOverThreshold();
+        final int perSeatOver = formula.getAmountPerSeatOverThreshold();
+        final int creditLimit = formula.getCreditThreshold();
+        final int divisor = formula.getCreditDivisor();
+        final int bound = SPECIES.loopBound(audience.length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            final IntVector seats = IntVector.fromArray(SPECIES, audience, i);
+            final IntVector over = seats.max(limit).sub(limit);
+            seats.mul(perSeat).add(base)
+                    .add(over.mul(perSeatOver))
+                    .add(over.min(1).mul(step))
+                    .intoArray(amounts, i);
+            IntVector credit = seats.sub(creditLimit).max(0);
+            if (divisor != 0) {
+                credit = credit.add(seats.div(divisor));
+            }
+            credit.intoArray(credits, i);
+        }
+        formula.priceAll(audience, i, audience.length, amounts, credits);
+    }
+}
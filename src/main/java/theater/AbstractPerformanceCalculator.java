@@ -1,70 +1,109 @@
 package theater;
 
+import java.util.Objects;
+
 /**
- * Base performance calculator for different play types.
+ * Base performance calculator for different play types. Calculators are stateless: one shared
+ * instance per play type prices every performance of that type. Additional play types can be
+ * provided through {@link java.util.ServiceLoader} by listing subclasses in
+ * {@code META-INF/services/theater.AbstractPerformanceCalculator}.
  *
  * @null This class does not accept null performance or play objects.
  */
 
 public abstract class AbstractPerformanceCalculator {
-    private final Performance performance;
-    private final Play play;
-
-    public AbstractPerformanceCalculator(Performance performance, Play play) {
-        this.performance = performance;
-        this.play = play;
-    }
 
     /**
-     * Creates a performance calculator instance based on the play type.
+     * Returns the shared calculator for the given play's type.
      *
      * @param performance the performance being evaluated
      * @param play the play for the performance
-     * @return a calculator for the specified performance and play
+     * @return the calculator for the play's type
      * @throws IllegalArgumentException if the play type is unknown
      */
     public static AbstractPerformanceCalculator createPerformanceCalculator(
             Performance performance, Play play) {
-        switch (play.getType()) {
-            case Constants.TYPE_TRAGEDY:
-                return new TragedyCalculator(performance, play);
-            case Constants.TYPE_COMEDY:
-                return new ComedyCalculator(performance, play);
-            default:
-                throw new IllegalArgumentException("Unknown play type: " + play.getType());
-        }
+        return forType(play.getType());
     }
 
-    public Performance getPerformance() {
-        return performance;
+    /**
+     * Returns the shared calculator for a play type from the default registry.
+     *
+     * @param type the play type
+     * @return the calculator for the play type
+     * @throws IllegalArgumentException if the play type is unknown
+     */
+    public static AbstractPerformanceCalculator forType(String type) {
+        return CalculatorRegistry.getDefault().get(type);
     }
 
-    public Play getPlay() {
-        return play;
-    }
+    /**
+     * Returns the play type this calculator prices.
+     *
+     * @return the play type (e.g., "tragedy", "comedy")
+     */
+    public abstract String getType();
 
     /**
-     * Calculates the amount owed for this performance.
+     * Calculates the amount owed for a performance with the given audience.
      *
+     * @param audience the audience size
      * @return the amount owed in cents
      */
 
-    public abstract int amountFor();
+    public abstract int amountFor(int audience);
 
     /**
-     * Calculates the volume credits for this performance, with comedy bonus.
+     * Calculates the volume credits for a performance with the given audience.
      *
+     * @param audience the audience size
      * @return the volume credits earned for this performance
      */
 
-    public int volumeCredits() {
-        int result = Math.max(
-                performance.getAudience() - Constants.BASE_VOLUME_CREDIT_THRESHOLD, 0);
+    public int volumeCredits(int audience) {
+        return Math.max(audience - Constants.BASE_VOLUME_CREDIT_THRESHOLD, 0);
+    }
+
+    /**
+     * Calculates the amount owed for this performance.
+     *
+     * @param performance the performance being evaluated
+     * @return the amount owed in cents
+     */
+    public final int amountFor(Performance performance) {
+        return amountFor(performance.getAudience());
+    }
+
+    /**
+     * Calculates the volume credits for this performance.
+     *
+     * @param performance the performance being evaluated
+     * @return the volume credits earned for this performance
+     */
+    public final int volumeCredits(Performance performance) {
+        return volumeCredits(performance.getAudience());
+    }
 
-        if (Constants.TYPE_COMEDY.equals(play.getType())) {
-            result += performance.getAudience() / Constants.COMEDY_EXTRA_VOLUME_FACTOR;
+    /**
+     * Prices many performances of this play type at once: {@code audience[from..to)} is priced
+     * into the same positions of {@code amounts} and {@code credits}. Calculators that can price
+     * in bulk faster than row by row override this; results must match the per-row methods.
+     *
+     * @param audience the audience sizes
+     * @param from     the first index, inclusive
+     * @param to       the last index, exclusive
+     * @param amounts  receives the amounts in cents
+     * @param credits  receives the volume credits
+     * @throws IndexOutOfBoundsException if the range does not fit every array
+     */
+    public void priceAll(int[] audience, int from, int to, int[] amounts, int[] credits) {
+        Objects.checkFromToIndex(from, to, audience.length);
+        Objects.checkFromToIndex(from, to, amounts.length);
+        Objects.checkFromToIndex(from, to, credits.length);
+        for (int i = from; i < to; i++) {
+            amounts[i] = amountFor(audience[i]);
+            credits[i] = volumeCredits(audience[i]);
         }
-        return result;
     }
 
 }
@@ -0,0 +1,165 @@
+package theater;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Renders many invoices against one shared play catalog in parallel on a fork/join pool.
+ * Results are always produced in the same order as the input invoices. The catalog is interned
+ * once into a {@link StatementEngine} shared by every worker, so rows are resolved by play index
+ * rather than by hashing play IDs.
+ *
+ * @non_null
+ */
+public class BatchStatementRenderer {
+    /** Number of invoices rendered per fork/join leaf task. */
+    private static final int LEAF_SIZE = 64;
+    /** Number of invoices pulled from a stream before they are rendered as one parallel chunk. */
+    private static final int DEFAULT_CHUNK_SIZE = 16_384;
+
+    private final StatementEngine engine;
+    private final int parallelism;
+    private final int chunkSize;
+
+    /**
+     * Builds a renderer that uses one worker per available processor.
+     *
+     * @param plays the play catalog shared by every invoice in the batch
+     */
+    public BatchStatementRenderer(Map<String, Play> plays) {
+        this(plays, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Builds a renderer with the given degree of parallelism.
+     *
+     * @param plays       the play catalog shared by every invoice in the batch
+     * @param parallelism the number of worker threads to render with
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public BatchStatementRenderer(Map<String, Play> plays, int parallelism) {
+        this(plays, parallelism, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Builds a renderer with the given degree of parallelism and stream chunk size.
+     *
+     * @param plays       the play catalog shared by every invoice in the batch
+     * @param parallelism the number of worker threads to render with
+     * @param chunkSize   the number of invoices buffered from a stream per parallel step
+     * @throws IllegalArgumentException if parallelism or chunkSize is not positive
+     */
+    public BatchStatementRenderer(Map<String, Play> plays, int parallelism, int chunkSize) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.engine = StatementEngine.of(plays);
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Renders every invoice in the list.
+     *
+     * @param invoices the invoices to render
+     * @param format   the output format
+     * @return the rendered statements, in the same order as {@code invoices}
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public List<String> render(List<Invoice> invoices, StatementFormat format) {
+        final String[] result = new String[invoices.size()];
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RenderTask(engine, invoices, format, result, 0, result.length));
+        }
+        finally {
+            pool.shutdown();
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Renders a (possibly unbounded) stream of invoices, handing each statement to the sink
+     * in input order. Only one chunk of invoices is held in memory at a time.
+     *
+     * @param invoices the invoices to render
+     * @param format   the output format
+     * @param sink     receives each rendered statement, called from the calling thread
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public void render(Stream<Invoice> invoices, StatementFormat format, Consumer<String> sink) {
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final Iterator<Invoice> source = invoices.iterator();
+            final List<Invoice> chunk = new ArrayList<>(chunkSize);
+            final String[] rendered = new String[chunkSize];
+            while (source.hasNext()) {
+                chunk.clear();
+                while (chunk.size() < chunkSize && source.hasNext()) {
+                    chunk.add(source.next());
+                }
+                pool.invoke(new RenderTask(engine, chunk, format, rendered, 0, chunk.size()));
+                for (int i = 0; i < chunk.size(); i++) {
+                    sink.accept(rendered[i]);
+                    rendered[i] = null;
+                }
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Splits an index range of the batch in half until it is small enough to render directly.
+     */
+    private static final class RenderTask extends RecursiveAction {
+        // tasks only live inside a pool and are never serialized; the engine and invoices are not serializable
+        private static final long serialVersionUID = 1L;
+
+        private final transient StatementEngine engine;
+        private final transient List<Invoice> invoices;
+        private final transient StatementFormat format;
+        private final transient String[] result;
+        private final int from;
+        private final int to;
+
+        RenderTask(StatementEngine engine, List<Invoice> invoices, StatementFormat format, String[] result,
+                   int from, int to) {
+            this.engine = engine;
+            this.invoices = invoices;
+            this.format = format;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    result[i] = engine.render(invoices.get(i), format);
+                }
+            }
+            else {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new RenderTask(engine, invoices, format, result, from, mid),
+                        new RenderTask(engine, invoices, format, result, mid, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package theater;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a binary invoice file written by {@link BinaryInvoiceWriter} through memory-mapped
+ * windows of the file, without copying it onto the heap or creating {@link Performance} objects.
+ *
+ * <p>The reader is a cursor: {@link #next()} moves to the next invoice, whose customer, play
+ * indices and audiences are then available through accessors backed by reusable arrays. Files
+ * larger than one mapping are read through successive windows.</p>
+ *
+ * <p>Instances are not thread-safe.</p>
+ *
+ * @non_null
+ */
+public class BinaryInvoiceFile implements Closeable {
+    private static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+    private static final int INITIAL_ROWS = 64;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long windowSize;
+    private final PlayCatalog catalog;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private String customer;
+    private int size;
+    private int[] playIndex = new int[INITIAL_ROWS];
+    private int[] audience = new int[INITIAL_ROWS];
+
+    /**
+     * Opens a binary invoice file.
+     *
+     * @param file the file to read
+     * @throws IOException if the file cannot be opened or is not a binary invoice file
+     */
+    public BinaryInvoiceFile(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    BinaryInvoiceFile(Path file, long windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.windowSize = windowSize;
+        try {
+            mapAt(0);
+            this.catalog = readHeader();
+        }
+        catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    public PlayCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Moves to the next invoice.
+     *
+     * @return true if there was another invoice, false at the end of the file
+     * @throws IOException if the file cannot be mapped or a record is malformed
+     */
+    public boolean next() throws IOException {
+        if (position >= fileSize) {
+            return false;
+        }
+        final long start = position;
+        try {
+            readRecord();
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException exception) {
+            if (start == windowStart) {
+                throw recordError(start, exception);
+            }
+            // the record straddles the end of the window: remap starting at the record and retry
+            mapAt(start);
+            try {
+                readRecord();
+            }
+            catch (BufferUnderflowException | IndexOutOfBoundsException retryException) {
+                throw recordError(start, retryException);
+            }
+        }
+        return true;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    /**
+     * Returns the number of performances in the current invoice.
+     *
+     * @return the number of performances
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a performance's catalog play index.
+     *
+     * @param row the performance index
+     * @return the play index
+     */
+    public int getPlayIndex(int row) {
+        checkRow(row);
+        return playIndex[row];
+    }
+
+    /**
+     * Returns a performance's audience size.
+     *
+     * @param row the performance index
+     * @return the audience size
+     */
+    public int getAudience(int row) {
+        checkRow(row);
+        return audience[row];
+    }
+
+    /**
+     * Prices the current invoice into columns.
+     *
+     * @param registry the calculators to price each play type with
+     * @return the priced invoice
+     * @throws IllegalArgumentException if a play type is not known
+     */
+    public ColumnarInvoice toColumnarInvoice(CalculatorRegistry registry) {
+        return ColumnarInvoice.of(customer, catalog, playIndex, audience, size, registry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private IOException recordError(long start, RuntimeException cause) {
+        if (windowStart + window.limit() >= fileSize) {
+            return new IOException("Truncated invoice record at offset " + start, cause);
+        }
+        return new IOException("Invoice record at offset " + start + " is larger than the mapping window", cause);
+    }
+
+    private PlayCatalog readHeader() throws IOException {
+        final int headerSize = BinaryInvoiceWriter.MAGIC.length + 1;
+        if (fileSize < headerSize) {
+            throw new IOException("Not a binary invoice file");
+        }
+        for (byte expected : BinaryInvoiceWriter.MAGIC) {
+            if (window.get(relative(position++)) != expected) {
+                throw new IOException("Not a binary invoice file");
+            }
+        }
+        final int version = window.get(relative(position++));
+        if (version != BinaryInvoiceWriter.FORMAT_VERSION) {
+            throw new IOException("Unsupported binary invoice format version: " + version);
+        }
+        final int count = readCount();
+        final String[] ids = new String[count];
+        final Play[] plays = new Play[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = readString();
+            final String name = readString();
+            plays[i] = new Play(name, readString());
+        }
+        return PlayCatalog.inOrder(ids, plays);
+    }
+
+    private void readRecord() throws IOException {
+        final String name = readString();
+        final int count = readCount();
+        if (count > playIndex.length) {
+            final int capacity = Math.max(count, playIndex.length * 2);
+            playIndex = Arrays.copyOf(playIndex, capacity);
+            audience = Arrays.copyOf(audience, capacity);
+        }
+        for (int i = 0; i < count; i++) {
+            final int index = readVarint();
+            if (index < 0 || index >= catalog.size()) {
+                throw new IOException("Unknown play index " + index + " at offset " + position);
+            }
+            playIndex[i] = index;
+            final int zigzag = readVarint();
+            audience[i] = (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+        customer = name;
+        size = count;
+    }
+
+    private int readVarint() throws IOException {
+        int result = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift >= Integer.SIZE) {
+                throw new IOException("Malformed varint at offset " + position);
+            }
+            b = window.get(relative(position++));
+            result |= (b & BinaryInvoiceWriter.VARINT_PAYLOAD_MASK) << shift;
+            shift += BinaryInvoiceWriter.VARINT_PAYLOAD_BITS;
+        } while ((b & BinaryInvoiceWriter.VARINT_CONTINUATION) != 0);
+        return result;
+    }
+
+    private int readCount() throws IOException {
+        final int result = readVarint();
+        if (result < 0) {
+            throw new IOException("Negative count " + result + " at offset " + position);
+        }
+        return result;
+    }
+
+    private String readString() throws IOException {
+        final int length = readVarint();
+        final int offset = relative(position);
+        if (length < 0 || offset + length > window.limit()) {
+            throw new BufferUnderflowException();
+        }
+        final byte[] bytes = new byte[length];
+        window.get(offset, bytes);
+        position += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int relative(long offset) {
+        final long result = offset - windowStart;
+        if (result >= window.limit()) {
+            throw new BufferUnderflowException();
+        }
+        return (int) result;
+    }
+
+    private void mapAt(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, fileSize - start));
+        position = start;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+    }
+}
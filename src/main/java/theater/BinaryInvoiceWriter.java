@@ -0,0 +1,120 @@
+package theater;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes invoices in the compact binary format read by {@link BinaryInvoiceFile}.
+ *
+ * <p>Layout: the magic bytes {@code THIV} and a format version byte, then the play table (a
+ * varint count followed by each play's ID, name and type), then one record per invoice until the
+ * end of the file. A record is the customer, a varint performance count, and for each performance
+ * its varint play index and zigzag varint audience. Strings are a varint byte length followed by
+ * UTF-8 bytes.</p>
+ *
+ * @non_null
+ */
+public class BinaryInvoiceWriter implements Closeable {
+    static final byte[] MAGIC = {'T', 'H', 'I', 'V'};
+    static final int FORMAT_VERSION = 1;
+    static final int VARINT_PAYLOAD_BITS = 7;
+    static final int VARINT_PAYLOAD_MASK = 0x7F;
+    static final int VARINT_CONTINUATION = 0x80;
+
+    private final OutputStream out;
+    private final PlayCatalog catalog;
+    private long invoiceCount;
+
+    /**
+     * Starts a binary invoice stream and writes its header and play table.
+     *
+     * @param out     the destination; closed when this writer is closed
+     * @param catalog the play catalog invoices will be resolved against
+     * @throws IOException if writing fails
+     */
+    public BinaryInvoiceWriter(OutputStream out, PlayCatalog catalog) throws IOException {
+        this.out = out;
+        this.catalog = catalog;
+        out.write(MAGIC);
+        out.write(FORMAT_VERSION);
+        writeVarint(catalog.size());
+        for (int i = 0; i < catalog.size(); i++) {
+            writeString(catalog.getPlayID(i));
+            writeString(catalog.getName(i));
+            writeString(catalog.getType(i));
+        }
+    }
+
+    /**
+     * Converts a JSON invoice file ({@code invoices.json} shape) to the binary format, streaming
+     * one invoice at a time.
+     *
+     * @param json    the JSON invoices
+     * @param catalog the play catalog
+     * @param target  the binary file to create or replace
+     * @return the number of invoices converted
+     * @throws IOException if reading or writing fails
+     * @throws IllegalArgumentException if an invoice refers to an unknown play ID
+     */
+    public static long convert(InputStream json, PlayCatalog catalog, Path target) throws IOException {
+        try (InvoiceReader reader = new InvoiceReader(json);
+             OutputStream file = Files.newOutputStream(target);
+             BinaryInvoiceWriter writer = new BinaryInvoiceWriter(new BufferedOutputStream(file), catalog)) {
+            while (reader.hasNext()) {
+                writer.write(reader.next());
+            }
+            return writer.getInvoiceCount();
+        }
+    }
+
+    /**
+     * Appends one invoice.
+     *
+     * @param invoice the invoice
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if the invoice refers to an unknown play ID
+     */
+    public void write(Invoice invoice) throws IOException {
+        final int[] playIndex = catalog.resolve(invoice);
+        final List<Performance> performances = invoice.getPerformances();
+        writeString(invoice.getCustomer());
+        writeVarint(playIndex.length);
+        for (int i = 0; i < playIndex.length; i++) {
+            writeVarint(playIndex[i]);
+            final int audience = performances.get(i).getAudience();
+            writeVarint((audience << 1) ^ (audience >> (Integer.SIZE - 1)));
+        }
+        invoiceCount++;
+    }
+
+    public long getInvoiceCount() {
+        return invoiceCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeString(String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarint(int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~VARINT_PAYLOAD_MASK) != 0) {
+            out.write((remaining & VARINT_PAYLOAD_MASK) | VARINT_CONTINUATION);
+            remaining >>>= VARINT_PAYLOAD_BITS;
+        }
+        out.write(remaining);
+    }
+}
@@ -0,0 +1,159 @@
+package theater;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * Immutable lookup of the shared calculator for each play type.
+ *
+ * @non_null
+ */
+public final class CalculatorRegistry {
+    private final Map<String, AbstractPerformanceCalculator> calculators;
+
+    private CalculatorRegistry(Map<String, AbstractPerformanceCalculator> calculators) {
+        this.calculators = Collections.unmodifiableMap(calculators);
+    }
+
+    /**
+     * Returns the registry of built-in calculators plus any discovered through
+     * {@link ServiceLoader}. It is built once, on first use; if that fails, every call
+     * throws the same failure rather than leaving the class unusable.
+     *
+     * @return the default registry
+     * @throws IllegalStateException if two calculators claim the same play type
+     */
+    public static CalculatorRegistry getDefault() {
+        if (DefaultHolder.FAILURE != null) {
+            throw new IllegalStateException(DefaultHolder.FAILURE.getMessage(), DefaultHolder.FAILURE);
+        }
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * Builds a registry from the given calculators.
+     *
+     * @param calculators the calculators, one per play type
+     * @return the registry
+     * @throws IllegalStateException if two calculators claim the same play type
+     */
+    public static CalculatorRegistry of(Collection<? extends AbstractPerformanceCalculator> calculators) {
+        final Map<String, AbstractPerformanceCalculator> result = new HashMap<>();
+        for (AbstractPerformanceCalculator calculator : calculators) {
+            register(result, calculator);
+        }
+        return new CalculatorRegistry(result);
+    }
+
+    /**
+     * Returns a registry whose calculators look prices up in tables precomputed for audiences
+     * up to {@code maxAudience}, falling back to this registry's formulas above that.
+     *
+     * @param maxAudience the largest audience to precompute
+     * @return the table-driven registry
+     * @throws IllegalArgumentException if maxAudience is negative or above
+     *                                  {@link TabulatedCalculator#MAX_TABULATED_AUDIENCE}
+     */
+    public CalculatorRegistry tabulated(int maxAudience) {
+        final Map<String, AbstractPerformanceCalculator> result = new HashMap<>();
+        for (Map.Entry<String, AbstractPerformanceCalculator> entry : calculators.entrySet()) {
+            result.put(entry.getKey(), new TabulatedCalculator(entry.getValue(), maxAudience));
+        }
+        return new CalculatorRegistry(result);
+    }
+
+    /**
+     * Returns the calculator for a play type.
+     *
+     * @param type the play type
+     * @return the calculator for the play type
+     * @throws IllegalArgumentException if the play type is unknown
+     */
+    public AbstractPerformanceCalculator get(String type) {
+        final AbstractPerformanceCalculator result = calculators.get(type);
+        if (result == null) {
+            throw unknownType(type);
+        }
+        return result;
+    }
+
+    /**
+     * Counts an unknown play type failure and returns the exception to throw for it.
+     *
+     * @param type the play type that has no calculator
+     * @return the exception describing the failure
+     */
+    static IllegalArgumentException unknownType(String type) {
+        StatementMetrics.getDefault().recordUnknownPlayType();
+        return new IllegalArgumentException("Unknown play type: " + type);
+    }
+
+    /**
+     * Checks whether a play type has a calculator.
+     *
+     * @param type the play type
+     * @return true if the play type is known
+     */
+    public boolean contains(String type) {
+        return calculators.containsKey(type);
+    }
+
+    /**
+     * Returns the known play types.
+     *
+     * @return an unmodifiable view of the play types
+     */
+    public Set<String> getTypes() {
+        return calculators.keySet();
+    }
+
+    private static void register(Map<String, AbstractPerformanceCalculator> calculators,
+                                 AbstractPerformanceCalculator calculator) {
+        final AbstractPerformanceCalculator previous = calculators.putIfAbsent(calculator.getType(), calculator);
+        if (previous != null) {
+            throw new IllegalStateException("Duplicate calculator for play type: " + calculator.getType());
+        }
+    }
+
+    /**
+     * Lazily builds the default registry the first time it is requested. A duplicate plugin
+     * is kept as {@link #FAILURE} instead of escaping the initializer, which would turn it into
+     * an {@link ExceptionInInitializerError} once and a {@link NoClassDefFoundError} after that.
+     */
+    private static final class DefaultHolder {
+        static final CalculatorRegistry INSTANCE;
+        static final IllegalStateException FAILURE;
+
+        static {
+            CalculatorRegistry instance = null;
+            IllegalStateException failure = null;
+            try {
+                instance = load();
+            }
+            catch (IllegalStateException exception) {
+                failure = exception;
+            }
+            INSTANCE = instance;
+            FAILURE = failure;
+        }
+
+        private static CalculatorRegistry load() {
+            final Map<String, AbstractPerformanceCalculator> result = new HashMap<>();
+            for (AbstractPerformanceCalculator calculator : Arrays.asList(
+                    new TragedyCalculator(), new ComedyCalculator(),
+                    new HistoryCalculator(), new PastoralCalculator())) {
+                register(result, calculator);
+            }
+            for (AbstractPerformanceCalculator calculator
+                    : ServiceLoader.load(AbstractPerformanceCalculator.class)) {
+                register(result, calculator);
+            }
+            return new CalculatorRegistry(result);
+        }
+    }
+}
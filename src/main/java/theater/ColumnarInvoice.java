@@ -0,0 +1,276 @@
+package theater;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A priced invoice stored column by column: each performance is one index into parallel
+ * primitive arrays (play index, audience, amount, credits) rather than a chain of objects.
+ * Plays are referred to by their index in a {@link PlayCatalog}.
+ *
+ * @non_null
+ */
+public final class ColumnarInvoice {
+    private static final int INITIAL_TYPES = 4;
+
+    private final String customer;
+    private final PlayCatalog catalog;
+    private final int size;
+    private final int[] playIndex;
+    private final int[] audience;
+    private final int[] amount;
+    private final int[] credits;
+    private final int totalAmount;
+    private final int totalCredits;
+
+    private ColumnarInvoice(String customer, PlayCatalog catalog, int size,
+                            int[] playIndex, int[] audience, CalculatorRegistry registry) {
+        this.customer = customer;
+        this.catalog = catalog;
+        this.size = size;
+        this.playIndex = playIndex;
+        this.audience = audience;
+        this.amount = new int[size];
+        this.credits = new int[size];
+
+        // Calculators are resolved once per play by the catalog, not once per row.
+        final AbstractPerformanceCalculator[] calculators = catalog.calculators(registry);
+        final StatementMetrics metrics = StatementMetrics.getDefault();
+        // rows are counted per distinct calculator in a small local table and added to the
+        // metrics once at the end, so interleaved play types cost no shared-counter update per row
+        AbstractPerformanceCalculator[] priced = new AbstractPerformanceCalculator[INITIAL_TYPES];
+        long[] pricedRows = new long[INITIAL_TYPES];
+        int distinct = 0;
+        int slot = -1;
+        int amountSum = 0;
+        int creditSum = 0;
+        for (int i = 0; i < size; i++) {
+            final AbstractPerformanceCalculator calculator = calculators[playIndex[i]];
+            if (calculator == null) {
+                throw CalculatorRegistry.unknownType(catalog.getType(playIndex[i]));
+            }
+            amount[i] = calculator.amountFor(audience[i]);
+            credits[i] = calculator.volumeCredits(audience[i]);
+            amountSum += amount[i];
+            creditSum += credits[i];
+            if (slot < 0 || priced[slot] != calculator) {
+                slot = 0;
+                while (slot < distinct && priced[slot] != calculator) {
+                    slot++;
+                }
+                if (slot == distinct) {
+                    if (distinct == priced.length) {
+                        priced = Arrays.copyOf(priced, distinct * 2);
+                        pricedRows = Arrays.copyOf(pricedRows, distinct * 2);
+                    }
+                    priced[slot] = calculator;
+                    distinct++;
+                }
+            }
+            pricedRows[slot]++;
+        }
+        for (int i = 0; i < distinct; i++) {
+            metrics.recordPriced(priced[i].getType(), pricedRows[i]);
+        }
+        this.totalAmount = amountSum;
+        this.totalCredits = creditSum;
+    }
+
+    private ColumnarInvoice(String customer, PlayCatalog catalog, int size, int[] playIndex, int[] audience,
+                            int[] amount, int[] credits, int totalAmount, int totalCredits) {
+        this.customer = customer;
+        this.catalog = catalog;
+        this.size = size;
+        this.playIndex = playIndex;
+        this.audience = audience;
+        this.amount = amount;
+        this.credits = credits;
+        this.totalAmount = totalAmount;
+        this.totalCredits = totalCredits;
+    }
+
+    /**
+     * Adds per-play row counts accumulated over many invoices to the priced performance metrics,
+     * once per play rather than once per row.
+     */
+    static void recordPriced(PlayCatalog catalog, long[] rowsPerPlay) {
+        final StatementMetrics metrics = StatementMetrics.getDefault();
+        for (int i = 0; i < rowsPerPlay.length; i++) {
+            if (rowsPerPlay[i] > 0) {
+                metrics.recordPriced(catalog.getType(i), rowsPerPlay[i]);
+            }
+        }
+    }
+
+    /**
+     * Wraps columns that have already been priced. The arrays are copied.
+     */
+    static ColumnarInvoice ofPriced(String customer, PlayCatalog catalog, int size, int[] playIndex,
+                                    int[] audience, int[] amount, int[] credits,
+                                    int totalAmount, int totalCredits) {
+        return new ColumnarInvoice(customer, catalog, size, Arrays.copyOf(playIndex, size),
+                Arrays.copyOf(audience, size), Arrays.copyOf(amount, size), Arrays.copyOf(credits, size),
+                totalAmount, totalCredits);
+    }
+
+    /**
+     * Converts and prices an invoice against a play map.
+     *
+     * @param invoice  the invoice to convert
+     * @param plays    the lookup table of plays by ID
+     * @param registry the calculators to price each play type with
+     * @return the priced columnar invoice
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public static ColumnarInvoice of(Invoice invoice, Map<String, Play> plays, CalculatorRegistry registry) {
+        final int[] playIndex = new int[invoice.getPerformances().size()];
+        final PlayCatalog catalog = PlayCatalog.forInvoice(invoice, plays, playIndex);
+        return of(invoice, catalog, playIndex, registry);
+    }
+
+    /**
+     * Converts and prices an invoice against a play catalog.
+     *
+     * @param invoice  the invoice to convert
+     * @param catalog  the play catalog
+     * @param registry the calculators to price each play type with
+     * @return the priced columnar invoice
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public static ColumnarInvoice of(Invoice invoice, PlayCatalog catalog, CalculatorRegistry registry) {
+        return of(invoice, catalog, catalog.resolve(invoice), registry);
+    }
+
+    private static ColumnarInvoice of(Invoice invoice, PlayCatalog catalog, int[] playIndex,
+                                      CalculatorRegistry registry) {
+        final List<Performance> performances = invoice.getPerformances();
+        final int[] audience = new int[playIndex.length];
+        for (int i = 0; i < audience.length; i++) {
+            audience[i] = performances.get(i).getAudience();
+        }
+        return new ColumnarInvoice(invoice.getCustomer(), catalog, playIndex.length, playIndex, audience, registry);
+    }
+
+    /**
+     * Prices an invoice that is already in columnar form. The arrays are copied.
+     *
+     * @param customer  the customer's name
+     * @param catalog   the play catalog that {@code playIndex} refers to
+     * @param playIndex the catalog index of each performance's play
+     * @param audience  the audience of each performance
+     * @param size      the number of performances; only that prefix of the arrays is used
+     * @param registry  the calculators to price each play type with
+     * @return the priced columnar invoice
+     * @throws IllegalArgumentException if a play index or play type is not known
+     */
+    public static ColumnarInvoice of(String customer, PlayCatalog catalog, int[] playIndex,
+                                     int[] audience, int size, CalculatorRegistry registry) {
+        final int[] indices = Arrays.copyOf(playIndex, size);
+        for (int index : indices) {
+            if (index < 0 || index >= catalog.size()) {
+                throw new IllegalArgumentException("Unknown play index for " + customer + ": " + index);
+            }
+        }
+        return new ColumnarInvoice(customer, catalog, size, indices, Arrays.copyOf(audience, size), registry);
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    /**
+     * Returns the number of performances.
+     *
+     * @return the number of performances
+     */
+    public int size() {
+        return size;
+    }
+
+    public PlayCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Returns the catalog index of a performance's play.
+     *
+     * @param row the performance index
+     * @return the play index
+     */
+    public int getPlayIndex(int row) {
+        return playIndex[row];
+    }
+
+    /**
+     * Returns a performance's play.
+     *
+     * @param row the performance index
+     * @return the play
+     */
+    public Play getPlay(int row) {
+        return catalog.getPlay(playIndex[row]);
+    }
+
+    /**
+     * Returns a performance's play ID.
+     *
+     * @param row the performance index
+     * @return the play ID
+     */
+    public String getPlayID(int row) {
+        return catalog.getPlayID(playIndex[row]);
+    }
+
+    /**
+     * Returns a performance's audience size.
+     *
+     * @param row the performance index
+     * @return the audience size
+     */
+    public int getAudience(int row) {
+        return audience[row];
+    }
+
+    /**
+     * Returns a performance's amount.
+     *
+     * @param row the performance index
+     * @return the amount in cents
+     */
+    public int getAmount(int row) {
+        return amount[row];
+    }
+
+    /**
+     * Returns a performance's volume credits.
+     *
+     * @param row the performance index
+     * @return the volume credits
+     */
+    public int getVolumeCredits(int row) {
+        return credits[row];
+    }
+
+    public int getTotalAmount() {
+        return totalAmount;
+    }
+
+    public int getTotalVolumeCredits() {
+        return totalCredits;
+    }
+
+    /**
+     * Rebuilds an object-per-row invoice from the columns.
+     *
+     * @return a new invoice with the same customer and performances
+     */
+    public Invoice toInvoice() {
+        final List<Performance> performances = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            performances.add(new Performance(getPlayID(i), audience[i]));
+        }
+        return new Invoice(customer, performances);
+    }
+}
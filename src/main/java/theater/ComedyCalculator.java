@@ -2,24 +2,34 @@ package theater;
 
 /**
  * Calculator for comedy performances.
- *
- * @null This class does not accept null performance or play objects.
  */
 
-public class ComedyCalculator extends AbstractPerformanceCalculator {
-    public ComedyCalculator(Performance performance, Play play) {
-        super(performance, play);
+public final class ComedyCalculator extends AbstractPerformanceCalculator {
+
+    @Override
+    public String getType() {
+        return Constants.TYPE_COMEDY;
     }
 
     @Override
-    public int amountFor() {
+    public int amountFor(int audience) {
         int result = Constants.COMEDY_BASE_AMOUNT;
-        if (getPerformance().getAudience() > Constants.COMEDY_AUDIENCE_THRESHOLD) {
+        if (audience > Constants.COMEDY_AUDIENCE_THRESHOLD) {
             result += Constants.COMEDY_OVER_BASE_CAPACITY_AMOUNT
                     + Constants.COMEDY_OVER_BASE_CAPACITY_PER_PERSON
-                    * (getPerformance().getAudience() - Constants.COMEDY_AUDIENCE_THRESHOLD);
+                    * (audience - Constants.COMEDY_AUDIENCE_THRESHOLD);
         }
-        result += Constants.COMEDY_AMOUNT_PER_AUDIENCE * getPerformance().getAudience();
+        result += Constants.COMEDY_AMOUNT_PER_AUDIENCE * audience;
         return result;
     }
+
+    @Override
+    public int volumeCredits(int audience) {
+        return super.volumeCredits(audience) + audience / Constants.COMEDY_EXTRA_VOLUME_FACTOR;
+    }
+
+    @Override
+    public void priceAll(int[] audience, int from, int to, int[] amounts, int[] credits) {
+        PricingFormula.COMEDY.priceAll(audience, from, to, amounts, credits);
+    }
 }
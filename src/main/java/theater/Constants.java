@@ -7,6 +7,8 @@ public final class Constants {
     // play type constants (used in factory and elsewhere)
     public static final String TYPE_TRAGEDY = "tragedy";
     public static final String TYPE_COMEDY = "comedy";
+    public static final String TYPE_HISTORY = "history";
+    public static final String TYPE_PASTORAL = "pastoral";
     // volume constants
     public static final int BASE_VOLUME_CREDIT_THRESHOLD = 30;
     public static final int COMEDY_EXTRA_VOLUME_FACTOR = 5;
@@ -32,6 +34,7 @@ public final class Constants {
     public static final int PASTORAL_OVER_BASE_CAPACITY_PER_PERSON = 2500;
     public static final int PASTORAL_AUDIENCE_THRESHOLD = 20;
     public static final int PASTORAL_VOLUME_CREDIT_THRESHOLD = 20;
+    public static final int PASTORAL_EXTRA_VOLUME_FACTOR = 2;
 
     private Constants() {
 
@@ -0,0 +1,33 @@
+package theater;
+
+/**
+ * 64-bit content fingerprints used to key caches and version catalogs. Each value is mixed in
+ * with a multiply-xorshift step, which spreads single-character and single-digit differences
+ * across the whole hash.
+ */
+final class ContentHash {
+    static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long MULTIPLIER = 0xBF58476D1CE4E5B9L;
+    private static final int SHIFT = 31;
+
+    private ContentHash() {
+
+    }
+
+    static long mix(long hash, long value) {
+        long result = (hash ^ value) * MULTIPLIER;
+        result ^= result >>> SHIFT;
+        return result;
+    }
+
+    static long mix(long hash, String value) {
+        if (value == null) {
+            return mix(hash, -1L);
+        }
+        long result = mix(hash, value.length());
+        for (int i = 0; i < value.length(); i++) {
+            result = mix(result, value.charAt(i));
+        }
+        return result;
+    }
+}
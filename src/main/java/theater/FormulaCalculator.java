@@ -0,0 +1,47 @@
+package theater;
+
+/**
+ * Calculator for a play type whose rules are given as a {@link PricingFormula}, typically
+ * compiled from a {@link PriceSheet} rather than written as a subclass.
+ *
+ * @non_null
+ */
+public final class FormulaCalculator extends AbstractPerformanceCalculator {
+    private final String type;
+    private final PricingFormula formula;
+
+    /**
+     * Creates a calculator for one play type.
+     *
+     * @param type    the play type
+     * @param formula the pricing rules
+     */
+    public FormulaCalculator(String type, PricingFormula formula) {
+        this.type = type;
+        this.formula = formula;
+    }
+
+    public PricingFormula getFormula() {
+        return formula;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public int amountFor(int audience) {
+        return formula.amountFor(audience);
+    }
+
+    @Override
+    public int volumeCredits(int audience) {
+        return formula.volumeCredits(audience);
+    }
+
+    @Override
+    public void priceAll(int[] audience, int from, int to, int[] amounts, int[] credits) {
+        formula.priceAll(audience, from, to, amounts, credits);
+    }
+}
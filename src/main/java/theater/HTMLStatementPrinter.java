@@ -1,5 +1,6 @@
 package theater;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -18,39 +19,39 @@ public class HTMLStatementPrinter extends StatementPrinter {
     }
 
     /**
-     * Produce an HTML-formatted statement.
+     * Construct an HTML statement printer that prices with the given calculators.
      *
-     * @return the rendered HTML invoice
+     * @param invoice  the invoice data
+     * @param plays    the plays map
+     * @param registry the calculators to price each play type with
      */
-    @Override
-    public String statement() {
-        final StatementData data = getStatementData();
-        final StringBuilder result = new StringBuilder(
-                String.format("<h1>Statement for %s</h1>%n", data.getCustomer())
-        );
-
-        result.append("<table>").append(System.lineSeparator());
-        result.append(String.format(" <caption>Statement for %s</caption>%n", data.getCustomer()));
-        result.append(" <tr><th>play</th><th>seats</th><th>cost</th></tr>")
-                .append(System.lineSeparator());
+    public HTMLStatementPrinter(Invoice invoice, Map<String, Play> plays, CalculatorRegistry registry) {
+        super(invoice, plays, registry);
+    }
 
-        for (PerformanceData perfData : data.getPerformances()) {
-            result.append(String.format(
-                    " <tr><td>%s</td><td>%s</td><td>%s</td></tr>%n",
-                    perfData.getName(),
-                    perfData.getAudience(),
-                    usd(perfData.amountFor())
-            ));
-        }
+    /**
+     * Construct an HTML statement printer for already prepared statement data.
+     *
+     * @param statementData the prepared statement data
+     */
+    public HTMLStatementPrinter(StatementData statementData) {
+        super(statementData);
+    }
 
-        result.append("</table>").append(System.lineSeparator());
-        result.append(String.format(
-                "<p>Amount owed is <em>%s</em></p>%n", usd(data.totalAmount())
-        ));
-        result.append(String.format(
-                "<p>You earned <em>%s</em> credits</p>%n", data.volumeCredits()
-        ));
+    /**
+     * Renders the statement data as HTML.
+     *
+     * @param data the prepared statement data
+     * @param out  the destination
+     * @throws IOException if the destination fails
+     */
+    @Override
+    protected void render(StatementData data, Appendable out) throws IOException {
+        StatementTemplate.HTML.render(data, out);
+    }
 
-        return result.toString();
+    @Override
+    protected String getRendererName() {
+        return StatementTemplate.HTML.getName();
     }
 }
@@ -0,0 +1,33 @@
+package theater;
+
+/**
+ * Calculator for history performances.
+ */
+
+public final class HistoryCalculator extends AbstractPerformanceCalculator {
+
+    @Override
+    public String getType() {
+        return Constants.TYPE_HISTORY;
+    }
+
+    @Override
+    public int amountFor(int audience) {
+        int result = Constants.HISTORY_BASE_AMOUNT;
+        if (audience > Constants.HISTORY_AUDIENCE_THRESHOLD) {
+            result += Constants.HISTORY_OVER_BASE_CAPACITY_PER_PERSON
+                    * (audience - Constants.HISTORY_AUDIENCE_THRESHOLD);
+        }
+        return result;
+    }
+
+    @Override
+    public int volumeCredits(int audience) {
+        return Math.max(audience - Constants.HISTORY_VOLUME_CREDIT_THRESHOLD, 0);
+    }
+
+    @Override
+    public void priceAll(int[] audience, int from, int to, int[] amounts, int[] credits) {
+        PricingFormula.HISTORY.priceAll(audience, from, to, amounts, credits);
+    }
+}
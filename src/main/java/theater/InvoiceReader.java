@@ -0,0 +1,230 @@
+package theater;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads invoices one at a time from a JSON array in the {@code invoices.json} shape.
+ * Only the invoice currently being returned is held in memory, so heap use stays flat
+ * however large the input is.
+ *
+ * @non_null
+ */
+public class InvoiceReader implements Iterator<Invoice>, Closeable {
+    private static final String CUSTOMER = "customer";
+    private static final String PERFORMANCES = "performances";
+    private static final String PLAY_ID = "playID";
+    private static final String AUDIENCE = "audience";
+    private static final String NAME = "name";
+    private static final String TYPE = "type";
+
+    private final JsonPullParser parser;
+    private boolean started;
+
+    /**
+     * Creates a reader over a UTF-8 encoded JSON stream.
+     *
+     * @param in the stream to read; closed when this reader is closed
+     */
+    public InvoiceReader(InputStream in) {
+        this.parser = new JsonPullParser(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Opens a reader over a JSON invoice file.
+     *
+     * @param file the file to read
+     * @return a reader positioned before the first invoice
+     * @throws IOException if the file cannot be opened
+     */
+    public static InvoiceReader open(Path file) throws IOException {
+        return new InvoiceReader(new BufferedInputStream(Files.newInputStream(file)));
+    }
+
+    /**
+     * Reads a play map in the {@code plays.json} shape.
+     *
+     * @param in the stream to read; it is not closed
+     * @return the plays by ID
+     * @throws UncheckedIOException if reading fails
+     * @throws IllegalStateException if the input is not a plays document or a play lacks a name or type
+     */
+    public static Map<String, Play> readPlays(InputStream in) {
+        final JsonPullParser parser =
+                new JsonPullParser(new InputStreamReader(in, StandardCharsets.UTF_8));
+        final Map<String, Play> result = new HashMap<>();
+        parser.expect(JsonPullParser.Token.BEGIN_OBJECT);
+        while (parser.peek() == JsonPullParser.Token.NAME) {
+            parser.next();
+            final String playID = parser.text();
+            String name = null;
+            String type = null;
+            parser.expect(JsonPullParser.Token.BEGIN_OBJECT);
+            while (parser.peek() == JsonPullParser.Token.NAME) {
+                parser.next();
+                final String field = parser.text();
+                if (NAME.equals(field)) {
+                    name = parser.nextString();
+                }
+                else if (TYPE.equals(field)) {
+                    type = parser.nextString();
+                }
+                else {
+                    parser.skipValue();
+                }
+            }
+            parser.expect(JsonPullParser.Token.END_OBJECT);
+            require(parser, name, NAME, "play " + playID);
+            require(parser, type, TYPE, "play " + playID);
+            result.put(playID, new Play(name, type));
+        }
+        parser.expect(JsonPullParser.Token.END_OBJECT);
+        return result;
+    }
+
+    /**
+     * Returns the remaining invoices as a sequential stream. Closing the stream closes this reader.
+     *
+     * @return a stream over the remaining invoices
+     */
+    public Stream<Invoice> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    }
+                    catch (IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                });
+    }
+
+    /**
+     * Checks whether another invoice is available.
+     *
+     * @return true if {@link #next()} will return an invoice
+     * @throws UncheckedIOException if reading fails
+     * @throws IllegalStateException if the input is not an invoices document or a record lacks a required field
+     */
+    @Override
+    public boolean hasNext() {
+        if (!started) {
+            parser.expect(JsonPullParser.Token.BEGIN_ARRAY);
+            started = true;
+        }
+        return parser.peek() == JsonPullParser.Token.BEGIN_OBJECT;
+    }
+
+    /**
+     * Reads the next invoice.
+     *
+     * @return the next invoice
+     * @throws NoSuchElementException if there are no more invoices
+     * @throws UncheckedIOException if reading fails
+     * @throws IllegalStateException if the input is not an invoices document or a record lacks a required field
+     */
+    @Override
+    public Invoice next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return readInvoice(parser);
+    }
+
+    /**
+     * Reads a single invoice object in the shape of one element of {@code invoices.json}.
+     *
+     * @param in the stream to read; it is not closed
+     * @return the invoice
+     * @throws UncheckedIOException if reading fails
+     * @throws IllegalStateException if the input is not an invoice object or lacks a required field
+     */
+    public static Invoice readInvoice(InputStream in) {
+        return readInvoice(new JsonPullParser(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    }
+
+    private static Invoice readInvoice(JsonPullParser parser) {
+        parser.expect(JsonPullParser.Token.BEGIN_OBJECT);
+        String customer = null;
+        List<Performance> performances = null;
+        while (parser.peek() == JsonPullParser.Token.NAME) {
+            parser.next();
+            final String field = parser.text();
+            if (CUSTOMER.equals(field)) {
+                customer = parser.nextString();
+            }
+            else if (PERFORMANCES.equals(field)) {
+                performances = readPerformances(parser);
+            }
+            else {
+                parser.skipValue();
+            }
+        }
+        parser.expect(JsonPullParser.Token.END_OBJECT);
+        require(parser, customer, CUSTOMER, "invoice");
+        require(parser, performances, PERFORMANCES, "invoice of " + customer);
+        return new Invoice(customer, performances);
+    }
+
+    private static List<Performance> readPerformances(JsonPullParser parser) {
+        final List<Performance> result = new ArrayList<>();
+        parser.expect(JsonPullParser.Token.BEGIN_ARRAY);
+        while (parser.peek() == JsonPullParser.Token.BEGIN_OBJECT) {
+            parser.next();
+            String playID = null;
+            int audience = 0;
+            boolean hasAudience = false;
+            while (parser.peek() == JsonPullParser.Token.NAME) {
+                parser.next();
+                final String field = parser.text();
+                if (PLAY_ID.equals(field)) {
+                    playID = parser.nextString();
+                }
+                else if (AUDIENCE.equals(field)) {
+                    audience = parser.nextInt();
+                    hasAudience = true;
+                }
+                else {
+                    parser.skipValue();
+                }
+            }
+            parser.expect(JsonPullParser.Token.END_OBJECT);
+            require(parser, playID, PLAY_ID, "performance");
+            if (!hasAudience) {
+                throw parser.error("Missing " + AUDIENCE + " in performance of " + playID);
+            }
+            result.add(new Performance(playID, audience));
+        }
+        parser.expect(JsonPullParser.Token.END_ARRAY);
+        return result;
+    }
+
+    private static void require(JsonPullParser parser, Object value, String field, String record) {
+        if (value == null) {
+            throw parser.error("Missing " + field + " in " + record);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
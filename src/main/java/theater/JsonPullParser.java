@@ -0,0 +1,319 @@
+package theater;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Minimal pull parser for JSON text. It reads from a {@link Reader} through a fixed-size buffer,
+ * so memory use does not depend on the size of the document.
+ *
+ * @non_null
+ */
+final class JsonPullParser implements Closeable {
+
+    /**
+     * Kinds of tokens returned by {@link #next()}.
+     */
+    enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, LITERAL, END_DOCUMENT
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int HEX_RADIX = 16;
+    private static final int UNICODE_ESCAPE_LENGTH = 4;
+    private static final int INITIAL_DEPTH = 8;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder text = new StringBuilder();
+    private int pos;
+    private int limit;
+    private long offset;
+    private boolean[] containers = new boolean[INITIAL_DEPTH];
+    private int depth;
+    private Token peeked;
+    private boolean expectName;
+
+    JsonPullParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the type of the next token without consuming it.
+     *
+     * @return the next token
+     * @throws UncheckedIOException if reading fails
+     * @throws IllegalStateException if the input is not well-formed JSON
+     */
+    Token peek() {
+        if (peeked == null) {
+            peeked = readToken();
+        }
+        return peeked;
+    }
+
+    /**
+     * Consumes the next token. For names, strings, numbers and literals its text is available
+     * from {@link #text()} until the next call.
+     *
+     * @return the consumed token
+     * @throws UncheckedIOException if reading fails
+     * @throws IllegalStateException if the input is not well-formed JSON
+     */
+    Token next() {
+        final Token result = peek();
+        peeked = null;
+        return result;
+    }
+
+    /**
+     * Consumes the next token and checks it has the expected type.
+     *
+     * @param expected the expected token
+     * @throws IllegalStateException if a different token is found
+     */
+    void expect(Token expected) {
+        final Token actual = next();
+        if (actual != expected) {
+            throw error("Expected " + expected + " but found " + actual);
+        }
+    }
+
+    String text() {
+        return text.toString();
+    }
+
+    /**
+     * Consumes the next token as a string value.
+     *
+     * @return the string value
+     * @throws IllegalStateException if the next token is not a string
+     */
+    String nextString() {
+        expect(Token.STRING);
+        return text();
+    }
+
+    /**
+     * Consumes the next token as an int value.
+     *
+     * @return the int value
+     * @throws IllegalStateException if the next token is not an integer number
+     */
+    int nextInt() {
+        expect(Token.NUMBER);
+        try {
+            return Integer.parseInt(text, 0, text.length(), 10);
+        }
+        catch (NumberFormatException exception) {
+            throw error("Expected an integer but found " + text);
+        }
+    }
+
+    /**
+     * Skips the next value, including any nested objects or arrays.
+     */
+    void skipValue() {
+        int nesting = 0;
+        do {
+            final Token token = next();
+            if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+                nesting++;
+            }
+            else if (token == Token.END_OBJECT || token == Token.END_ARRAY) {
+                nesting--;
+            }
+            else if (token == Token.END_DOCUMENT) {
+                throw error("Unexpected end of document");
+            }
+        } while (nesting > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Token readToken() {
+        int c = skipWhitespace();
+        if (c == ',') {
+            expectName = inObject();
+            c = skipWhitespace();
+        }
+        if (c == -1) {
+            return Token.END_DOCUMENT;
+        }
+        final Token result;
+        switch (c) {
+            case '{':
+                push(true);
+                expectName = true;
+                result = Token.BEGIN_OBJECT;
+                break;
+            case '[':
+                push(false);
+                expectName = false;
+                result = Token.BEGIN_ARRAY;
+                break;
+            case '}':
+                depth--;
+                expectName = false;
+                result = Token.END_OBJECT;
+                break;
+            case ']':
+                depth--;
+                expectName = false;
+                result = Token.END_ARRAY;
+                break;
+            case '"':
+                readString();
+                result = readStringToken();
+                break;
+            default:
+                pos--;
+                result = readBareValue();
+                break;
+        }
+        return result;
+    }
+
+    private Token readStringToken() {
+        if (!expectName) {
+            return Token.STRING;
+        }
+        if (skipWhitespace() != ':') {
+            throw error("Expected ':' after object key");
+        }
+        expectName = false;
+        return Token.NAME;
+    }
+
+    private void push(boolean object) {
+        if (depth == containers.length) {
+            containers = Arrays.copyOf(containers, depth * 2);
+        }
+        containers[depth++] = object;
+    }
+
+    private boolean inObject() {
+        return depth > 0 && containers[depth - 1];
+    }
+
+    private int skipWhitespace() {
+        int c = read();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            c = read();
+        }
+        return c;
+    }
+
+    private void readString() {
+        text.setLength(0);
+        while (true) {
+            final int c = read();
+            if (c == -1) {
+                throw error("Unterminated string");
+            }
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                readEscape();
+            }
+            else {
+                text.append((char) c);
+            }
+        }
+    }
+
+    private void readEscape() {
+        final int c = read();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                text.append((char) c);
+                break;
+            case 'b':
+                text.append('\b');
+                break;
+            case 'f':
+                text.append('\f');
+                break;
+            case 'n':
+                text.append('\n');
+                break;
+            case 'r':
+                text.append('\r');
+                break;
+            case 't':
+                text.append('\t');
+                break;
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < UNICODE_ESCAPE_LENGTH; i++) {
+                    final int digit = Character.digit(read(), HEX_RADIX);
+                    if (digit < 0) {
+                        throw error("Malformed unicode escape");
+                    }
+                    value = value * HEX_RADIX + digit;
+                }
+                text.append((char) value);
+                break;
+            default:
+                throw error("Malformed escape sequence");
+        }
+    }
+
+    private Token readBareValue() {
+        text.setLength(0);
+        int c = read();
+        while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+            text.append((char) c);
+            c = read();
+        }
+        if (c != -1) {
+            pos--;
+        }
+        if (text.length() == 0) {
+            throw error("Unexpected character");
+        }
+        final char first = text.charAt(0);
+        final Token result;
+        if (first == '-' || Character.isDigit(first)) {
+            result = Token.NUMBER;
+        }
+        else if ("true".contentEquals(text) || "false".contentEquals(text) || "null".contentEquals(text)) {
+            result = Token.LITERAL;
+        }
+        else {
+            throw error("Unexpected value " + text);
+        }
+        return result;
+    }
+
+    private int read() {
+        if (pos == limit) {
+            offset += limit;
+            pos = 0;
+            try {
+                limit = reader.read(buffer, 0, buffer.length);
+            }
+            catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[pos++];
+    }
+
+    IllegalStateException error(String message) {
+        return new IllegalStateException(message + " at offset " + (offset + pos));
+    }
+}
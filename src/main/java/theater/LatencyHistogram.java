@@ -0,0 +1,149 @@
+package theater;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with power-of-two nanosecond buckets. Recording is a handful of
+ * uncontended adds, so it can sit on hot paths; all the arithmetic happens when a
+ * {@link Snapshot} is taken.
+ *
+ * @non_null
+ */
+public final class LatencyHistogram {
+    /** Bucket {@code i} holds durations below {@code 2^i} nanoseconds; the last one holds the rest. */
+    static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos the duration in nanoseconds; negative values count as zero
+     */
+    public void record(long nanos) {
+        final long value = Math.max(nanos, 0);
+        final int bucket = Math.min(Long.SIZE - Long.numberOfLeadingZeros(value), BUCKETS - 1);
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * Returns the recorded values so far. Values recorded while the snapshot is taken may or may
+     * not be included.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        final long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new Snapshot(count.sum(), totalNanos.sum(), maxNanos.get(), counts);
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    /**
+     * An immutable view of a histogram at one point in time.
+     */
+    public static final class Snapshot {
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long[] buckets;
+
+        Snapshot(long count, long totalNanos, long maxNanos, long[] buckets) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.buckets = buckets;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * Returns the mean duration.
+         *
+         * @return the mean in nanoseconds, or 0 if nothing was recorded
+         */
+        public long getMeanNanos() {
+            if (count == 0) {
+                return 0;
+            }
+            return totalNanos / count;
+        }
+
+        /**
+         * Returns an upper bound for a percentile: the top of the bucket the percentile falls in,
+         * capped at the maximum recorded value.
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return the bound in nanoseconds, or 0 if nothing was recorded
+         * @throws IllegalArgumentException if the percentile is out of range
+         */
+        public long getPercentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile out of range: " + percentile);
+            }
+            long bucketTotal = 0;
+            for (long bucket : buckets) {
+                bucketTotal += bucket;
+            }
+            final long rank = (long) Math.ceil(bucketTotal * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0 && i < buckets.length - 1) {
+                    return Math.min((1L << i) - 1, maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        /**
+         * Returns the bucket counts; bucket {@code i} counts durations below {@code 2^i}
+         * nanoseconds and at least {@code 2^(i-1)}.
+         *
+         * @return a copy of the bucket counts
+         */
+        public long[] getBuckets() {
+            return Arrays.copyOf(buckets, buckets.length);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package theater;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statement data that prices nothing until it is asked. Totals are computed on first use by
+ * {@link StatementTotals} without building any rows; the priced columns are built only when a
+ * row is read, and {@link PerformanceData} objects only as {@link #getPerformances()} is iterated.
+ *
+ * <p>Like {@link StatementData}, instances may be read from several threads. The lazily computed
+ * columns and totals are published only as objects whose fields are all final, so a thread that
+ * sees one sees it complete; racing threads at worst compute them twice.</p>
+ *
+ * @non_null
+ */
+final class LazyStatementData extends StatementData {
+    private final Invoice invoice;
+    private final PlayCatalog catalog;
+    private final CalculatorRegistry registry;
+    private ColumnarInvoice columns;
+    private Totals totals;
+
+    LazyStatementData(Invoice invoice, PlayCatalog catalog, CalculatorRegistry registry) {
+        this.invoice = invoice;
+        this.catalog = catalog;
+        this.registry = registry;
+    }
+
+    @Override
+    public String getCustomer() {
+        return invoice.getCustomer();
+    }
+
+    @Override
+    public int size() {
+        return invoice.getPerformances().size();
+    }
+
+    @Override
+    public String getPlayID(int row) {
+        return columns().getPlayID(row);
+    }
+
+    @Override
+    public String getName(int row) {
+        return columns().getPlay(row).getName();
+    }
+
+    @Override
+    public String getType(int row) {
+        return columns().getPlay(row).getType();
+    }
+
+    @Override
+    public int getAudience(int row) {
+        return columns().getAudience(row);
+    }
+
+    @Override
+    public int getAmount(int row) {
+        return columns().getAmount(row);
+    }
+
+    @Override
+    public int getVolumeCredits(int row) {
+        return columns().getVolumeCredits(row);
+    }
+
+    /**
+     * Returns a view whose row objects are created as they are read.
+     *
+     * @return the list of computed performance rows
+     */
+    @Override
+    public List<PerformanceData> getPerformances() {
+        return new AbstractList<PerformanceData>() {
+            @Override
+            public PerformanceData get(int row) {
+                final ColumnarInvoice priced = columns();
+                return new PerformanceData(new Performance(priced.getPlayID(row), priced.getAudience(row)),
+                        priced.getPlay(row), priced.getAmount(row), priced.getVolumeCredits(row));
+            }
+
+            @Override
+            public int size() {
+                return LazyStatementData.this.size();
+            }
+        };
+    }
+
+    @Override
+    public int totalAmount() {
+        final ColumnarInvoice priced = columns;
+        if (priced != null) {
+            return priced.getTotalAmount();
+        }
+        return totals().totalAmount;
+    }
+
+    @Override
+    public int volumeCredits() {
+        final ColumnarInvoice priced = columns;
+        if (priced != null) {
+            return priced.getTotalVolumeCredits();
+        }
+        return totals().volumeCredits;
+    }
+
+    @Override
+    public ColumnarInvoice getColumns() {
+        return columns();
+    }
+
+    @Override
+    public Invoice getInvoice() {
+        return invoice;
+    }
+
+    @Override
+    public Map<String, Play> getPlays() {
+        return catalog.toMap();
+    }
+
+    private ColumnarInvoice columns() {
+        ColumnarInvoice result = columns;
+        if (result == null) {
+            result = price(invoice, catalog, registry);
+            columns = result;
+        }
+        return result;
+    }
+
+    private Totals totals() {
+        Totals result = totals;
+        if (result == null) {
+            // StatementTotals is mutable, so only its results are published
+            final StatementTotals accumulated = new StatementTotals(catalog, registry).accumulate(invoice);
+            result = new Totals(accumulated.getTotalAmount(), accumulated.getVolumeCredits());
+            totals = result;
+        }
+        return result;
+    }
+
+    /**
+     * The totals of the invoice, safe to publish without synchronization.
+     */
+    private static final class Totals {
+        private final int totalAmount;
+        private final int volumeCredits;
+
+        Totals(int totalAmount, int volumeCredits) {
+            this.totalAmount = totalAmount;
+            this.volumeCredits = volumeCredits;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package theater;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of rendered statement lines, keyed by template, play and audience. The same
+ * play is often sold at the same audience size on many invoices, and its line is then identical
+ * every time; a hit appends the finished line (already UTF-8 encoded when the destination is a
+ * {@link StatementWriter}) instead of formatting the name, amount and seats again.
+ *
+ * <p>The cache is direct-mapped: each key has exactly one slot, and a new line simply replaces
+ * whatever was there, which counts as an eviction. Lookups and stores take no locks, so one
+ * cache can be shared by every thread rendering with a {@link StatementEngine}. Only templates
+ * whose row part depends on nothing but the row are cached; a CSV row that repeats the customer,
+ * for instance, is always rendered.</p>
+ *
+ * @non_null
+ */
+public final class LineFragmentCache {
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int HASH_SPREAD = 16;
+    private static final int HASH_MULTIPLIER = 31;
+
+    private final AtomicReferenceArray<Fragment> slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache holding at most {@code capacity} lines, rounded up to a power of two.
+     *
+     * @param capacity the number of lines to keep
+     * @throws IllegalArgumentException if capacity is not positive or too large
+     */
+    public LineFragmentCache(int capacity) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        }
+        final int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(Math.max(size, 1));
+        this.mask = slots.length() - 1;
+    }
+
+    /**
+     * Appends one row of a statement, from the cache if the same line was rendered before.
+     *
+     * @param template the template the row is rendered with
+     * @param data     the statement data
+     * @param row      the row index
+     * @param out      the destination
+     * @throws IOException if the destination fails
+     */
+    void appendRow(StatementTemplate template, StatementData data, int row, Appendable out) throws IOException {
+        final String playID = data.getPlayID(row);
+        final int audience = data.getAudience(row);
+        final int slot = slot(template, playID, audience);
+        Fragment fragment = slots.get(slot);
+        if (fragment != null && fragment.matches(template, data, row, playID, audience)) {
+            hits.increment();
+        }
+        else {
+            misses.increment();
+            final StringBuilder text = new StringBuilder();
+            template.renderRow(data, row, text);
+            final Fragment previous = fragment;
+            fragment = new Fragment(template, playID, data.getName(row), data.getType(row), audience,
+                    data.getAmount(row), data.getVolumeCredits(row), text.toString());
+            slots.set(slot, fragment);
+            if (previous != null) {
+                evictions.increment();
+            }
+        }
+        if (fragment.utf8 != null && out instanceof StatementWriter) {
+            ((StatementWriter) out).appendEncoded(fragment.utf8);
+        }
+        else {
+            out.append(fragment.text);
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the share of lookups that were hits.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        final long hitCount = hits.sum();
+        final long total = hitCount + misses.sum();
+        if (total == 0) {
+            return 0;
+        }
+        return (double) hitCount / total;
+    }
+
+    /**
+     * Removes every line and resets the statistics.
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    private int slot(StatementTemplate template, String playID, int audience) {
+        final int hash = (System.identityHashCode(template) * HASH_MULTIPLIER + playID.hashCode())
+                * HASH_MULTIPLIER + audience;
+        return (hash ^ hash >>> HASH_SPREAD) & mask;
+    }
+
+    /**
+     * One rendered line and everything it was rendered from.
+     */
+    private static final class Fragment {
+        private final StatementTemplate template;
+        private final String playID;
+        private final String name;
+        private final String type;
+        private final int audience;
+        private final int amount;
+        private final int credits;
+        private final String text;
+        private final byte[] utf8;
+
+        Fragment(StatementTemplate template, String playID, String name, String type, int audience,
+                 int amount, int credits, String text) {
+            this.template = template;
+            this.playID = playID;
+            this.name = name;
+            this.type = type;
+            this.audience = audience;
+            this.amount = amount;
+            this.credits = credits;
+            this.text = text;
+            this.utf8 = encode(text);
+        }
+
+        boolean matches(StatementTemplate otherTemplate, StatementData data, int row, String otherPlayID,
+                        int otherAudience) {
+            // amounts and credits are compared too, so lines priced under other rates never match
+            return template == otherTemplate
+                    && audience == otherAudience
+                    && amount == data.getAmount(row)
+                    && credits == data.getVolumeCredits(row)
+                    && playID.equals(otherPlayID)
+                    && name.equals(data.getName(row))
+                    && type.equals(data.getType(row));
+        }
+
+        private static byte[] encode(String text) {
+            // a surrogate at either end could pair with the neighbouring text, so encode it in context
+            if (!text.isEmpty() && (Character.isLowSurrogate(text.charAt(0))
+                    || Character.isHighSurrogate(text.charAt(text.length() - 1)))) {
+                return null;
+            }
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package theater;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * The current {@link PricingSnapshot} of a long-running process, replaced copy-on-write as plays
+ * or prices change. Readers call {@link #current()} once per statement and price everything
+ * against that snapshot, so each statement sees exactly one version; the read is a single
+ * volatile load and never blocks. Updates build a complete new snapshot first, check that the
+ * calculators know every play type in the catalog, and only then swap it in atomically, so a
+ * failed or inconsistent reload leaves the previous version in place. When plays and prices
+ * change together, publish them with {@link #update(PlayCatalog, CalculatorRegistry)} or
+ * {@link #reload(Path, Path)} so that no statement sees the new plays with the old prices.
+ *
+ * @non_null
+ */
+public final class LivePricing {
+    private final AtomicReference<PricingSnapshot> current;
+
+    /**
+     * Starts at version 1 with the given catalog and the default calculators.
+     *
+     * @param catalog the play catalog
+     * @throws IllegalArgumentException if the catalog has a play type the default calculators do not know
+     */
+    public LivePricing(PlayCatalog catalog) {
+        this(catalog, CalculatorRegistry.getDefault());
+    }
+
+    /**
+     * Starts at version 1 with the given catalog and calculators.
+     *
+     * @param catalog  the play catalog
+     * @param registry the calculators to price each play type with
+     * @throws IllegalArgumentException if the catalog has a play type the registry does not know
+     */
+    public LivePricing(PlayCatalog catalog, CalculatorRegistry registry) {
+        this.current = new AtomicReference<>(checked(new PricingSnapshot(1, catalog, registry)));
+    }
+
+    /**
+     * Returns the snapshot to price with. Never blocks.
+     *
+     * @return the current snapshot
+     */
+    public PricingSnapshot current() {
+        return current.get();
+    }
+
+    /**
+     * Publishes a new catalog.
+     *
+     * @param catalog the replacement play catalog
+     * @return the snapshot now current
+     * @throws IllegalArgumentException if the current calculators do not know one of the catalog's play types
+     */
+    public PricingSnapshot updateCatalog(PlayCatalog catalog) {
+        return update(snapshot -> snapshot.withCatalog(catalog));
+    }
+
+    /**
+     * Publishes new calculators.
+     *
+     * @param registry the replacement calculators
+     * @return the snapshot now current
+     * @throws IllegalArgumentException if the calculators do not know one of the current play types
+     */
+    public PricingSnapshot updateRegistry(CalculatorRegistry registry) {
+        return update(snapshot -> snapshot.withRegistry(registry));
+    }
+
+    /**
+     * Publishes the prices of a price sheet.
+     *
+     * @param sheet the replacement price sheet
+     * @return the snapshot now current
+     * @throws IllegalArgumentException if the sheet does not price one of the current play types
+     */
+    public PricingSnapshot updatePrices(PriceSheet sheet) {
+        return updateRegistry(sheet.getRegistry());
+    }
+
+    /**
+     * Publishes a new catalog and new calculators as one version.
+     *
+     * @param catalog  the replacement play catalog
+     * @param registry the replacement calculators
+     * @return the snapshot now current
+     * @throws IllegalArgumentException if the calculators do not know one of the catalog's play types
+     */
+    public PricingSnapshot update(PlayCatalog catalog, CalculatorRegistry registry) {
+        return update(snapshot -> snapshot.with(catalog, registry));
+    }
+
+    /**
+     * Reads a plays file in the format of {@code plays.json} and publishes it.
+     *
+     * @param plays the plays file
+     * @return the snapshot now current
+     * @throws IOException if the file cannot be read
+     * @throws IllegalStateException if the file is not well-formed; the current version is kept
+     * @throws IllegalArgumentException if the current calculators do not know one of the play types
+     */
+    public PricingSnapshot reloadPlays(Path plays) throws IOException {
+        try (InputStream in = Files.newInputStream(plays)) {
+            return updateCatalog(PlayCatalog.of(InvoiceReader.readPlays(in)));
+        }
+    }
+
+    /**
+     * Reads a price sheet file and publishes it.
+     *
+     * @param sheet the price sheet file
+     * @return the snapshot now current
+     * @throws IOException if the file cannot be read
+     * @throws IllegalStateException if the file is not a well-formed sheet; the current version is kept
+     * @throws IllegalArgumentException if the sheet does not price one of the current play types
+     */
+    public PricingSnapshot reloadPrices(Path sheet) throws IOException {
+        return updatePrices(PriceSheet.open(sheet));
+    }
+
+    /**
+     * Reads a plays file and a price sheet file and publishes them as one version. Both files
+     * are read before anything is published.
+     *
+     * @param plays the plays file, in the format of {@code plays.json}
+     * @param sheet the price sheet file
+     * @return the snapshot now current
+     * @throws IOException if either file cannot be read
+     * @throws IllegalStateException if either file is not well-formed; the current version is kept
+     * @throws IllegalArgumentException if the sheet does not price one of the play types
+     */
+    public PricingSnapshot reload(Path plays, Path sheet) throws IOException {
+        final PlayCatalog catalog;
+        try (InputStream in = Files.newInputStream(plays)) {
+            catalog = PlayCatalog.of(InvoiceReader.readPlays(in));
+        }
+        return update(catalog, PriceSheet.open(sheet).getRegistry());
+    }
+
+    private PricingSnapshot update(UnaryOperator<PricingSnapshot> change) {
+        // may retry if two updates race; each attempt derives from the latest version and is
+        // checked before it is published
+        return current.updateAndGet(snapshot -> checked(change.apply(snapshot)));
+    }
+
+    private static PricingSnapshot checked(PricingSnapshot snapshot) {
+        final PlayCatalog catalog = snapshot.getCatalog();
+        final CalculatorRegistry registry = snapshot.getRegistry();
+        final Set<String> unknown = new TreeSet<>();
+        for (int i = 0; i < catalog.size(); i++) {
+            if (!registry.contains(catalog.getType(i))) {
+                unknown.add(catalog.getType(i));
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("No calculators for play types " + unknown);
+        }
+        return snapshot;
+    }
+}
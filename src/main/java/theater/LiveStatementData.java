@@ -0,0 +1,269 @@
+package theater;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statement data that can change after it is built: performances can be appended, removed or
+ * have their audience corrected, and only the affected row is re-priced. Running totals are
+ * kept up to date on every change, so {@link #totalAmount()} and {@link #volumeCredits()} are
+ * constant-time reads and the statement can be re-rendered at any point without rebuilding
+ * the other rows.
+ *
+ * <p>Instances are not thread-safe; callers that share one must synchronize access.</p>
+ *
+ * @non_null
+ */
+public class LiveStatementData extends StatementData {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String customer;
+    private final PlayCatalog catalog;
+    private final AbstractPerformanceCalculator[] calculators;
+    private int size;
+    private int[] playIndex = new int[INITIAL_CAPACITY];
+    private int[] audience = new int[INITIAL_CAPACITY];
+    private int[] amount = new int[INITIAL_CAPACITY];
+    private int[] credits = new int[INITIAL_CAPACITY];
+    private int totalAmount;
+    private int totalCredits;
+
+    /**
+     * Creates an empty statement for a customer.
+     *
+     * @param customer the customer's name
+     * @param catalog  the play catalog performances refer to
+     * @param registry the calculators to price each play type with
+     */
+    public LiveStatementData(String customer, PlayCatalog catalog, CalculatorRegistry registry) {
+        this.customer = customer;
+        this.catalog = catalog;
+        this.calculators = catalog.calculators(registry);
+    }
+
+    /**
+     * Creates a live statement holding an invoice's performances.
+     *
+     * @param invoice  the starting invoice
+     * @param catalog  the play catalog performances refer to
+     * @param registry the calculators to price each play type with
+     * @return the live statement
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public static LiveStatementData of(Invoice invoice, PlayCatalog catalog, CalculatorRegistry registry) {
+        final LiveStatementData result = new LiveStatementData(invoice.getCustomer(), catalog, registry);
+        final int[] indices = catalog.resolve(invoice);
+        final List<Performance> performances = invoice.getPerformances();
+        for (int i = 0; i < indices.length; i++) {
+            result.append(indices[i], performances.get(i).getAudience());
+        }
+        return result;
+    }
+
+    /**
+     * Appends a performance.
+     *
+     * @param playID   the play ID
+     * @param audience the audience size
+     * @return the new row's index
+     * @throws IllegalArgumentException if the play ID or its type is not known
+     */
+    public int append(String playID, int audience) {
+        final int index = catalog.indexOf(playID);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown play ID for " + customer + ": " + playID);
+        }
+        return append(index, audience);
+    }
+
+    /**
+     * Appends a performance by catalog play index.
+     *
+     * @param index    the catalog index of the play
+     * @param audience the audience size
+     * @return the new row's index
+     * @throws IllegalArgumentException if the play index or its type is not known
+     */
+    public int append(int index, int audience) {
+        final AbstractPerformanceCalculator calculator = calculatorFor(index);
+        if (size == playIndex.length) {
+            final int capacity = size * 2;
+            playIndex = Arrays.copyOf(playIndex, capacity);
+            this.audience = Arrays.copyOf(this.audience, capacity);
+            amount = Arrays.copyOf(amount, capacity);
+            credits = Arrays.copyOf(credits, capacity);
+        }
+        final int row = size++;
+        playIndex[row] = index;
+        price(row, calculator, audience);
+        return row;
+    }
+
+    /**
+     * Removes a performance; later rows move up by one.
+     *
+     * @param row the row index
+     * @throws IndexOutOfBoundsException if the row does not exist
+     */
+    public void remove(int row) {
+        checkRow(row);
+        totalAmount -= amount[row];
+        totalCredits -= credits[row];
+        final int moved = size - row - 1;
+        System.arraycopy(playIndex, row + 1, playIndex, row, moved);
+        System.arraycopy(audience, row + 1, audience, row, moved);
+        System.arraycopy(amount, row + 1, amount, row, moved);
+        System.arraycopy(credits, row + 1, credits, row, moved);
+        size--;
+    }
+
+    /**
+     * Corrects a performance's audience and re-prices that row only.
+     *
+     * @param row      the row index
+     * @param newAudience the corrected audience size
+     * @throws IndexOutOfBoundsException if the row does not exist
+     */
+    public void setAudience(int row, int newAudience) {
+        checkRow(row);
+        totalAmount -= amount[row];
+        totalCredits -= credits[row];
+        price(row, calculators[playIndex[row]], newAudience);
+    }
+
+    @Override
+    public String getCustomer() {
+        return customer;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getPlayID(int row) {
+        checkRow(row);
+        return catalog.getPlayID(playIndex[row]);
+    }
+
+    @Override
+    public String getName(int row) {
+        checkRow(row);
+        return catalog.getName(playIndex[row]);
+    }
+
+    @Override
+    public String getType(int row) {
+        checkRow(row);
+        return catalog.getType(playIndex[row]);
+    }
+
+    @Override
+    public int getAudience(int row) {
+        checkRow(row);
+        return audience[row];
+    }
+
+    @Override
+    public int getAmount(int row) {
+        checkRow(row);
+        return amount[row];
+    }
+
+    @Override
+    public int getVolumeCredits(int row) {
+        checkRow(row);
+        return credits[row];
+    }
+
+    /**
+     * Returns the catalog index of a row's play.
+     *
+     * @param row the row index
+     * @return the play index
+     */
+    public int getPlayIndex(int row) {
+        checkRow(row);
+        return playIndex[row];
+    }
+
+    /**
+     * Returns a new list of row objects reflecting the current rows.
+     *
+     * @return the list of computed performance rows
+     */
+    @Override
+    public List<PerformanceData> getPerformances() {
+        final List<PerformanceData> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new PerformanceData(new Performance(catalog.getPlayID(playIndex[i]), audience[i]),
+                    catalog.getPlay(playIndex[i]), amount[i], credits[i]));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public int totalAmount() {
+        return totalAmount;
+    }
+
+    @Override
+    public int volumeCredits() {
+        return totalCredits;
+    }
+
+    /**
+     * Returns a snapshot of the current rows; later changes do not affect it.
+     *
+     * @return the current rows as a columnar invoice
+     */
+    @Override
+    public ColumnarInvoice getColumns() {
+        return ColumnarInvoice.ofPriced(customer, catalog, size, playIndex, audience, amount, credits,
+                totalAmount, totalCredits);
+    }
+
+    /**
+     * Returns a new invoice with the current performances.
+     *
+     * @return the current invoice
+     */
+    @Override
+    public Invoice getInvoice() {
+        return getColumns().toInvoice();
+    }
+
+    @Override
+    public Map<String, Play> getPlays() {
+        return catalog.toMap();
+    }
+
+    private AbstractPerformanceCalculator calculatorFor(int index) {
+        if (index < 0 || index >= calculators.length) {
+            throw new IllegalArgumentException("Unknown play index for " + customer + ": " + index);
+        }
+        if (calculators[index] == null) {
+            throw CalculatorRegistry.unknownType(catalog.getType(index));
+        }
+        return calculators[index];
+    }
+
+    private void price(int row, AbstractPerformanceCalculator calculator, int newAudience) {
+        audience[row] = newAudience;
+        amount[row] = calculator.amountFor(newAudience);
+        credits[row] = calculator.volumeCredits(newAudience);
+        StatementMetrics.getDefault().recordPriced(calculator.getType(), 1);
+        totalAmount += amount[row];
+        totalCredits += credits[row];
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package theater;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Formats amounts in integer cents as US currency, e.g. {@code $1,730.00}. The output matches
+ * {@code NumberFormat.getCurrencyInstance(Locale.US)} but is written straight into the caller's
+ * buffer without creating formatter, {@code double} or intermediate {@code String} objects.
+ * Plain integers (seats, credits) can be appended the same way.
+ */
+public final class MoneyFormatter {
+    private static final int DIGIT_GROUP = 1000;
+    private static final int TEN = 10;
+    private static final int HUNDRED = 100;
+
+    private MoneyFormatter() {
+
+    }
+
+    /**
+     * Formats an amount as US currency.
+     *
+     * @param cents the amount in cents
+     * @return the formatted currency string
+     */
+    public static String usd(long cents) {
+        final StringBuilder result = new StringBuilder();
+        appendUsd(result, cents);
+        return result.toString();
+    }
+
+    /**
+     * Appends an amount formatted as US currency.
+     *
+     * @param out   the builder to append to
+     * @param cents the amount in cents
+     * @return the builder, for chaining
+     */
+    public static StringBuilder appendUsd(StringBuilder out, long cents) {
+        try {
+            appendUsd((Appendable) out, cents);
+        }
+        catch (IOException exception) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(exception);
+        }
+        return out;
+    }
+
+    /**
+     * Appends an amount formatted as US currency.
+     *
+     * @param out   the destination to append to
+     * @param cents the amount in cents
+     * @throws IOException if the destination fails
+     */
+    public static void appendUsd(Appendable out, long cents) throws IOException {
+        // negate the parts rather than the whole amount so that Long.MIN_VALUE is handled too
+        long dollars = cents / Constants.PERCENT_FACTOR;
+        long fraction = cents % Constants.PERCENT_FACTOR;
+        if (cents < 0) {
+            out.append('-');
+            dollars = -dollars;
+            fraction = -fraction;
+        }
+        out.append('$');
+        appendGrouped(out, dollars);
+        out.append('.');
+        out.append((char) ('0' + fraction / TEN));
+        out.append((char) ('0' + fraction % TEN));
+    }
+
+    /**
+     * Appends an integer in plain decimal, exactly as {@link Long#toString(long)} would.
+     *
+     * @param out   the destination to append to
+     * @param value the value
+     * @throws IOException if the destination fails
+     */
+    public static void appendInteger(Appendable out, long value) throws IOException {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(value);
+            return;
+        }
+        long remaining = value;
+        if (remaining < 0) {
+            out.append('-');
+            if (remaining == Long.MIN_VALUE) {
+                out.append(Long.toString(value).substring(1));
+                return;
+            }
+            remaining = -remaining;
+        }
+        appendUngrouped(out, remaining);
+    }
+
+    private static void appendUngrouped(Appendable out, long value) throws IOException {
+        if (value >= TEN) {
+            appendUngrouped(out, value / TEN);
+        }
+        out.append((char) ('0' + value % TEN));
+    }
+
+    private static void appendGrouped(Appendable out, long value) throws IOException {
+        if (value < DIGIT_GROUP) {
+            appendDigits(out, value);
+            return;
+        }
+        appendGrouped(out, value / DIGIT_GROUP);
+        out.append(',');
+        final long group = value % DIGIT_GROUP;
+        if (group < HUNDRED) {
+            out.append('0');
+        }
+        if (group < TEN) {
+            out.append('0');
+        }
+        appendDigits(out, group);
+    }
+
+    private static void appendDigits(Appendable out, long value) throws IOException {
+        // value is below 1000 here, so at most three digits
+        if (value >= HUNDRED) {
+            out.append((char) ('0' + value / HUNDRED));
+        }
+        if (value >= TEN) {
+            out.append((char) ('0' + value / TEN % TEN));
+        }
+        out.append((char) ('0' + value % TEN));
+    }
+}
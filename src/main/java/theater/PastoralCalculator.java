@@ -0,0 +1,34 @@
+package theater;
+
+/**
+ * Calculator for pastoral performances.
+ */
+
+public final class PastoralCalculator extends AbstractPerformanceCalculator {
+
+    @Override
+    public String getType() {
+        return Constants.TYPE_PASTORAL;
+    }
+
+    @Override
+    public int amountFor(int audience) {
+        int result = Constants.PASTORAL_BASE_AMOUNT;
+        if (audience > Constants.PASTORAL_AUDIENCE_THRESHOLD) {
+            result += Constants.PASTORAL_OVER_BASE_CAPACITY_PER_PERSON
+                    * (audience - Constants.PASTORAL_AUDIENCE_THRESHOLD);
+        }
+        return result;
+    }
+
+    @Override
+    public int volumeCredits(int audience) {
+        return Math.max(audience - Constants.PASTORAL_VOLUME_CREDIT_THRESHOLD, 0)
+                + audience / Constants.PASTORAL_EXTRA_VOLUME_FACTOR;
+    }
+
+    @Override
+    public void priceAll(int[] audience, int from, int to, int[] amounts, int[] credits) {
+        PricingFormula.PASTORAL.priceAll(audience, from, to, amounts, credits);
+    }
+}
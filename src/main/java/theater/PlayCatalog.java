@@ -0,0 +1,308 @@
+package theater;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable catalog of plays in which every play ID is interned once to a dense integer index.
+ * Invoices are resolved to play indices a single time, after which rows refer to plays by index
+ * instead of hashing play ID strings.
+ *
+ * @non_null
+ */
+public final class PlayCatalog {
+    private final String[] playIDs;
+    private final String[] names;
+    private final String[] types;
+    private final Play[] plays;
+    private final Map<String, Integer> indexByID;
+    private final long version;
+    private volatile ResolvedCalculators resolved;
+
+    private PlayCatalog(String[] playIDs, Play[] plays) {
+        this(playIDs, plays, indexByID(playIDs));
+    }
+
+    private PlayCatalog(String[] playIDs, Play[] plays, Map<String, Integer> indexByID) {
+        this.playIDs = playIDs;
+        this.plays = plays;
+        this.names = new String[plays.length];
+        this.types = new String[plays.length];
+        this.indexByID = indexByID;
+        long hash = ContentHash.SEED;
+        for (int i = 0; i < plays.length; i++) {
+            names[i] = plays[i].getName();
+            types[i] = plays[i].getType();
+            hash = ContentHash.mix(ContentHash.mix(ContentHash.mix(hash, playIDs[i]), names[i]), types[i]);
+        }
+        this.version = hash;
+    }
+
+    private static Map<String, Integer> indexByID(String[] playIDs) {
+        final Map<String, Integer> result = new HashMap<>();
+        for (int i = 0; i < playIDs.length; i++) {
+            result.put(playIDs[i], i);
+        }
+        return result;
+    }
+
+    /**
+     * Builds a catalog from a play map. Indices are assigned in play ID order, so the same
+     * plays always get the same indices.
+     *
+     * @param plays the plays by ID
+     * @return the catalog
+     */
+    public static PlayCatalog of(Map<String, Play> plays) {
+        final String[] ids = plays.keySet().toArray(new String[0]);
+        Arrays.sort(ids);
+        final Play[] values = new Play[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            values[i] = plays.get(ids[i]);
+        }
+        return new PlayCatalog(ids, values);
+    }
+
+    /**
+     * Builds a catalog that keeps the given index order. The arrays are copied.
+     *
+     * @param playIDs the play ID at each index
+     * @param plays   the play at each index
+     * @return the catalog
+     * @throws IllegalArgumentException if the arrays differ in length or an ID repeats
+     */
+    public static PlayCatalog inOrder(String[] playIDs, Play[] plays) {
+        if (playIDs.length != plays.length) {
+            throw new IllegalArgumentException("Expected one play per ID");
+        }
+        final PlayCatalog result = new PlayCatalog(playIDs.clone(), plays.clone());
+        if (result.indexByID.size() != playIDs.length) {
+            throw new IllegalArgumentException("Duplicate play IDs");
+        }
+        return result;
+    }
+
+    /**
+     * Builds a catalog containing only the plays an invoice refers to, in order of first use.
+     *
+     * @param invoice the invoice
+     * @param plays   the plays by ID
+     * @return the catalog
+     * @throws IllegalArgumentException if the invoice refers to play IDs missing from {@code plays}
+     */
+    public static PlayCatalog forInvoice(Invoice invoice, Map<String, Play> plays) {
+        return forInvoice(invoice, plays, null);
+    }
+
+    /**
+     * Builds a catalog containing only the plays an invoice refers to, resolving each performance
+     * to its index on the way. Every row costs one lookup, whether the play is new or not.
+     *
+     * @param invoice   the invoice
+     * @param plays     the plays by ID
+     * @param playIndex receives the catalog index of each performance's play, or null
+     * @return the catalog
+     * @throws IllegalArgumentException if the invoice refers to play IDs missing from {@code plays}
+     */
+    static PlayCatalog forInvoice(Invoice invoice, Map<String, Play> plays, int[] playIndex) {
+        final List<Performance> performances = invoice.getPerformances();
+        final Map<String, Integer> indexByID = new HashMap<>();
+        final int rows = performances.size();
+        final int limit = Math.min(rows, plays.size());
+        final String[] usedIDs = new String[limit];
+        final Play[] used = new Play[limit];
+        int count = 0;
+        Set<String> unknown = null;
+        for (int i = 0; i < rows; i++) {
+            final String id = performances.get(i).getPlayID();
+            Integer index = indexByID.get(id);
+            if (index == null) {
+                final Play play = plays.get(id);
+                if (play == null) {
+                    if (unknown == null) {
+                        unknown = new LinkedHashSet<>();
+                    }
+                    unknown.add(id);
+                }
+                else {
+                    index = count;
+                    indexByID.put(id, index);
+                    usedIDs[count] = id;
+                    used[count] = play;
+                    count++;
+                }
+            }
+            if (playIndex != null && index != null) {
+                playIndex[i] = index;
+            }
+        }
+        if (unknown != null) {
+            throw unknownPlays(invoice, unknown);
+        }
+        if (count == limit) {
+            return new PlayCatalog(usedIDs, used, indexByID);
+        }
+        return new PlayCatalog(Arrays.copyOf(usedIDs, count), Arrays.copyOf(used, count), indexByID);
+    }
+
+    /**
+     * Returns the number of plays.
+     *
+     * @return the number of plays
+     */
+    public int size() {
+        return plays.length;
+    }
+
+    /**
+     * Returns a fingerprint of the catalog's content. Catalogs with the same play IDs, names and
+     * types in the same order have the same version; changing any play's name or type changes it.
+     *
+     * @return the content version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the index of a play ID.
+     *
+     * @param playID the play ID
+     * @return the index, or -1 if the play is not in the catalog
+     */
+    public int indexOf(String playID) {
+        final Integer result = indexByID.get(playID);
+        if (result == null) {
+            return -1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the play ID at an index.
+     *
+     * @param index the play index
+     * @return the play ID
+     */
+    public String getPlayID(int index) {
+        return playIDs[index];
+    }
+
+    /**
+     * Returns the play name at an index.
+     *
+     * @param index the play index
+     * @return the display name of the play
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Returns the play type at an index.
+     *
+     * @param index the play index
+     * @return the type of the play
+     */
+    public String getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Returns the play at an index.
+     *
+     * @param index the play index
+     * @return the play
+     */
+    public Play getPlay(int index) {
+        return plays[index];
+    }
+
+    /**
+     * Resolves every performance of an invoice to its play index. All unknown play IDs are
+     * reported together, before any pricing happens.
+     *
+     * @param invoice the invoice
+     * @return the play index of each performance, in order
+     * @throws IllegalArgumentException if the invoice refers to play IDs not in this catalog
+     */
+    public int[] resolve(Invoice invoice) {
+        final List<Performance> performances = invoice.getPerformances();
+        final int[] result = new int[performances.size()];
+        Set<String> unknown = null;
+        for (int i = 0; i < result.length; i++) {
+            final String id = performances.get(i).getPlayID();
+            result[i] = indexOf(id);
+            if (result[i] < 0) {
+                if (unknown == null) {
+                    unknown = new LinkedHashSet<>();
+                }
+                unknown.add(id);
+            }
+        }
+        if (unknown != null) {
+            throw unknownPlays(invoice, unknown);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the plays as a map keyed by play ID.
+     *
+     * @return an unmodifiable map of the plays
+     */
+    public Map<String, Play> toMap() {
+        final Map<String, Play> result = new LinkedHashMap<>();
+        for (int i = 0; i < plays.length; i++) {
+            result.put(playIDs[i], plays[i]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Returns the calculator for each play index, resolved once per registry and remembered.
+     * Entries are null for plays whose type the registry does not know.
+     *
+     * @param registry the calculators to resolve against
+     * @return the calculators by play index; must not be modified
+     */
+    AbstractPerformanceCalculator[] calculators(CalculatorRegistry registry) {
+        final ResolvedCalculators current = resolved;
+        if (current != null && current.registry == registry) {
+            return current.calculators;
+        }
+        final AbstractPerformanceCalculator[] result = new AbstractPerformanceCalculator[plays.length];
+        for (int i = 0; i < plays.length; i++) {
+            if (registry.contains(types[i])) {
+                result[i] = registry.get(types[i]);
+            }
+        }
+        resolved = new ResolvedCalculators(registry, result);
+        return result;
+    }
+
+    private static IllegalArgumentException unknownPlays(Invoice invoice, Set<String> unknown) {
+        return new IllegalArgumentException("Unknown play IDs for " + invoice.getCustomer() + ": "
+                + new ArrayList<>(unknown));
+    }
+
+    /**
+     * Calculators resolved against one registry.
+     */
+    private static final class ResolvedCalculators {
+        private final CalculatorRegistry registry;
+        private final AbstractPerformanceCalculator[] calculators;
+
+        ResolvedCalculators(CalculatorRegistry registry, AbstractPerformanceCalculator[] calculators) {
+            this.registry = registry;
+            this.calculators = calculators;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package theater;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Pricing rules for play types given as data instead of code, so prices can change without a
+ * release. A sheet is a JSON object keyed by play type; each entry sets the parameters of a
+ * {@link PricingFormula}, and parameters that are left out are zero:
+ *
+ * <pre>
+ * {
+ *   "comedy": {
+ *     "baseAmount": 30000, "amountPerSeat": 300,
+ *     "threshold": 20, "stepOverThreshold": 10000, "amountPerSeatOverThreshold": 500,
+ *     "creditThreshold": 30, "creditDivisor": 5
+ *   }
+ * }
+ * </pre>
+ *
+ * <p>The sheet is checked and compiled once, when it is read. Each type becomes a
+ * {@link TabulatedCalculator} holding precomputed amounts and credits for common audience sizes,
+ * backed by a {@link FormulaCalculator} for larger ones and for bulk pricing. Rates read from a
+ * sheet are not compile-time constants, so evaluating the formula per row (with a real integer
+ * division for the credit bonus) would be slower than the built-in calculators; the tables make
+ * the common case a single array read instead.</p>
+ *
+ * @non_null
+ */
+public final class PriceSheet {
+    private static final String BASE_AMOUNT = "baseAmount";
+    private static final String AMOUNT_PER_SEAT = "amountPerSeat";
+    private static final String THRESHOLD = "threshold";
+    private static final String STEP_OVER_THRESHOLD = "stepOverThreshold";
+    private static final String AMOUNT_PER_SEAT_OVER_THRESHOLD = "amountPerSeatOverThreshold";
+    private static final String CREDIT_THRESHOLD = "creditThreshold";
+    private static final String CREDIT_DIVISOR = "creditDivisor";
+    private static final int TABULATED_AUDIENCE = 1024;
+
+    private final Map<String, PricingFormula> formulas;
+    private final CalculatorRegistry registry;
+
+    private PriceSheet(Map<String, PricingFormula> formulas) {
+        this.formulas = Collections.unmodifiableMap(new TreeMap<>(formulas));
+        final List<AbstractPerformanceCalculator> calculators = new ArrayList<>();
+        for (Map.Entry<String, PricingFormula> entry : this.formulas.entrySet()) {
+            calculators.add(new TabulatedCalculator(new FormulaCalculator(entry.getKey(), entry.getValue()),
+                    TABULATED_AUDIENCE));
+        }
+        this.registry = CalculatorRegistry.of(calculators);
+    }
+
+    /**
+     * Creates a sheet from formulas by play type.
+     *
+     * @param formulas the pricing rules by play type
+     * @return the sheet
+     */
+    public static PriceSheet of(Map<String, PricingFormula> formulas) {
+        return new PriceSheet(formulas);
+    }
+
+    /**
+     * Reads a sheet from JSON.
+     *
+     * @param in the UTF-8 JSON input; it is not closed
+     * @return the sheet
+     * @throws IllegalStateException if the input is not a well-formed sheet
+     * @throws UncheckedIOException  if reading fails
+     */
+    public static PriceSheet read(InputStream in) {
+        final JsonPullParser parser = new JsonPullParser(new InputStreamReader(in, StandardCharsets.UTF_8));
+        final Map<String, PricingFormula> result = new TreeMap<>();
+        parser.expect(JsonPullParser.Token.BEGIN_OBJECT);
+        while (parser.peek() == JsonPullParser.Token.NAME) {
+            parser.next();
+            final String type = parser.text();
+            if (result.put(type, readFormula(parser, type)) != null) {
+                throw new IllegalStateException("Duplicate play type in price sheet: " + type);
+            }
+        }
+        parser.expect(JsonPullParser.Token.END_OBJECT);
+        return new PriceSheet(result);
+    }
+
+    /**
+     * Reads a sheet from a JSON file.
+     *
+     * @param path the file
+     * @return the sheet
+     * @throws IOException           if the file cannot be read
+     * @throws IllegalStateException if the file is not a well-formed sheet
+     */
+    public static PriceSheet open(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in);
+        }
+        catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    /**
+     * Returns the play types the sheet prices, in sorted order.
+     *
+     * @return the play types
+     */
+    public Set<String> getTypes() {
+        return formulas.keySet();
+    }
+
+    /**
+     * Returns the pricing rules for a play type.
+     *
+     * @param type the play type
+     * @return the formula
+     * @throws IllegalArgumentException if the sheet has no rules for the type
+     */
+    public PricingFormula getFormula(String type) {
+        final PricingFormula result = formulas.get(type);
+        if (result == null) {
+            throw new IllegalArgumentException("Unknown play type: " + type);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the calculators compiled from the sheet, one per play type.
+     *
+     * @return the registry
+     */
+    public CalculatorRegistry getRegistry() {
+        return registry;
+    }
+
+    private static PricingFormula readFormula(JsonPullParser parser, String type) {
+        int baseAmount = 0;
+        int amountPerSeat = 0;
+        int threshold = 0;
+        int stepOverThreshold = 0;
+        int amountPerSeatOverThreshold = 0;
+        int creditThreshold = 0;
+        int creditDivisor = 0;
+        parser.expect(JsonPullParser.Token.BEGIN_OBJECT);
+        while (parser.peek() == JsonPullParser.Token.NAME) {
+            parser.next();
+            final String field = parser.text();
+            switch (field) {
+                case BASE_AMOUNT:
+                    baseAmount = parser.nextInt();
+                    break;
+                case AMOUNT_PER_SEAT:
+                    amountPerSeat = parser.nextInt();
+                    break;
+                case THRESHOLD:
+                    threshold = parser.nextInt();
+                    break;
+                case STEP_OVER_THRESHOLD:
+                    stepOverThreshold = parser.nextInt();
+                    break;
+                case AMOUNT_PER_SEAT_OVER_THRESHOLD:
+                    amountPerSeatOverThreshold = parser.nextInt();
+                    break;
+                case CREDIT_THRESHOLD:
+                    creditThreshold = parser.nextInt();
+                    break;
+                case CREDIT_DIVISOR:
+                    creditDivisor = parser.nextInt();
+                    break;
+                default:
+                    // a misspelt rate would otherwise silently price at zero
+                    throw new IllegalStateException("Unknown price sheet field for " + type + ": " + field);
+            }
+        }
+        parser.expect(JsonPullParser.Token.END_OBJECT);
+        try {
+            return new PricingFormula(baseAmount, amountPerSeat, threshold, stepOverThreshold,
+                    amountPerSeatOverThreshold, creditThreshold, creditDivisor);
+        }
+        catch (IllegalArgumentException exception) {
+            throw new IllegalStateException("Invalid price sheet entry for " + type + ": " + exception.getMessage());
+        }
+    }
+}
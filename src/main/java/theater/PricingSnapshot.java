@@ -0,0 +1,79 @@
+package theater;
+
+/**
+ * One consistent version of everything pricing depends on: the play catalog and the calculators
+ * for each play type. Snapshots are immutable, so any number of threads can price against one
+ * without locking; {@link LivePricing} publishes new ones when plays or prices change.
+ *
+ * @non_null
+ */
+public final class PricingSnapshot {
+    /** The version recorded for statements not priced from a snapshot. */
+    public static final long UNVERSIONED = 0;
+
+    private final long version;
+    private final PlayCatalog catalog;
+    private final CalculatorRegistry registry;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param version  the version number
+     * @param catalog  the play catalog
+     * @param registry the calculators to price each play type with
+     */
+    public PricingSnapshot(long version, PlayCatalog catalog, CalculatorRegistry registry) {
+        this.version = version;
+        this.catalog = catalog;
+        this.registry = registry;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public PlayCatalog getCatalog() {
+        return catalog;
+    }
+
+    public CalculatorRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Returns a snapshot with the next version number and a different catalog.
+     *
+     * @param newCatalog the replacement play catalog
+     * @return the new snapshot
+     */
+    public PricingSnapshot withCatalog(PlayCatalog newCatalog) {
+        return new PricingSnapshot(version + 1, newCatalog, registry);
+    }
+
+    /**
+     * Returns a snapshot with the next version number and different calculators.
+     *
+     * @param newRegistry the replacement calculators
+     * @return the new snapshot
+     */
+    public PricingSnapshot withRegistry(CalculatorRegistry newRegistry) {
+        return new PricingSnapshot(version + 1, catalog, newRegistry);
+    }
+
+    /**
+     * Returns a snapshot with the next version number, a different catalog and different calculators.
+     *
+     * @param newCatalog  the replacement play catalog
+     * @param newRegistry the replacement calculators
+     * @return the new snapshot
+     */
+    public PricingSnapshot with(PlayCatalog newCatalog, CalculatorRegistry newRegistry) {
+        return new PricingSnapshot(version + 1, newCatalog, newRegistry);
+    }
+
+    @Override
+    public String toString() {
+        return "PricingSnapshot{version=" + version + ", plays=" + catalog.size()
+                + ", types=" + registry.getTypes() + '}';
+    }
+}
@@ -0,0 +1,185 @@
+package theater;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A rendered statement that can be corrected in place. Each row's text is kept separately, so
+ * applying {@link StatementChanges} re-prices and re-renders only the rows that changed, plus the
+ * header and footer, which may show totals. The text is always identical to rendering the
+ * corrected statement from scratch with the same template.
+ *
+ * <p>Templates whose row or separator parts show totals or the row count cannot keep their rows,
+ * since every row changes with any correction; for those every row is re-rendered.</p>
+ *
+ * <p>Instances are not thread-safe; callers that share one must synchronize access.</p>
+ *
+ * @non_null
+ */
+public final class RenderedStatement {
+    private final LiveStatementData data;
+    private final StatementTemplate template;
+    private final List<String> rows;
+    private final List<String> separators;
+    private String header;
+    private String footer;
+    private int length;
+
+    /**
+     * Renders live statement data. The data then belongs to this statement and must only be
+     * changed through {@link #apply(StatementChanges)}.
+     *
+     * @param data     the statement data
+     * @param template the template to render with
+     */
+    public RenderedStatement(LiveStatementData data, StatementTemplate template) {
+        this.data = data;
+        this.template = template;
+        final int size = data.size();
+        this.rows = new ArrayList<>(size);
+        this.separators = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(null);
+            separators.add(null);
+        }
+        refresh();
+    }
+
+    public StatementTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * Returns the number of performance rows.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * Returns the statement's total amount.
+     *
+     * @return the total amount in cents
+     */
+    public int getTotalAmount() {
+        return data.totalAmount();
+    }
+
+    /**
+     * Returns the statement's total volume credits.
+     *
+     * @return the total credits
+     */
+    public int getVolumeCredits() {
+        return data.volumeCredits();
+    }
+
+    /**
+     * Applies corrections and re-renders the affected rows, the header and the footer.
+     *
+     * @param changes the corrections, applied in order
+     * @throws IllegalArgumentException  if a play ID or play type is not known; earlier changes stay applied
+     * @throws IndexOutOfBoundsException if a row does not exist; earlier changes stay applied
+     */
+    public void apply(StatementChanges changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            changes.applyTo(data, new StatementChanges.Listener() {
+                @Override
+                public void added(int row) {
+                    rows.add(null);
+                    separators.add(null);
+                }
+
+                @Override
+                public void removed(int row) {
+                    rows.remove(row);
+                    separators.remove(row);
+                }
+
+                @Override
+                public void changed(int row) {
+                    rows.set(row, null);
+                    separators.set(row, null);
+                }
+            });
+        }
+        finally {
+            if (!template.hasStableRows()) {
+                for (int i = 0; i < rows.size(); i++) {
+                    rows.set(i, null);
+                    separators.set(i, null);
+                }
+            }
+            refresh();
+        }
+    }
+
+    /**
+     * Appends the statement text.
+     *
+     * @param out the destination
+     * @throws IOException if the destination fails
+     */
+    public void appendTo(Appendable out) throws IOException {
+        out.append(header);
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                out.append(separators.get(i));
+            }
+            out.append(rows.get(i));
+        }
+        out.append(footer);
+    }
+
+    /**
+     * Returns the statement text.
+     *
+     * @return the statement
+     */
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder(length);
+        try {
+            appendTo(result);
+        }
+        catch (IOException exception) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(exception);
+        }
+        return result.toString();
+    }
+
+    private void refresh() {
+        final StringBuilder text = new StringBuilder();
+        try {
+            template.renderHeader(data, text);
+            header = text.toString();
+            text.setLength(0);
+            template.renderFooter(data, text);
+            footer = text.toString();
+            length = header.length() + footer.length();
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i) == null) {
+                    text.setLength(0);
+                    template.renderRow(data, i, text);
+                    rows.set(i, text.toString());
+                    text.setLength(0);
+                    template.renderSeparator(data, i, text);
+                    separators.set(i, text.toString());
+                }
+                length += rows.get(i).length() + (i > 0 ? separators.get(i).length() : 0);
+            }
+        }
+        catch (IOException exception) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
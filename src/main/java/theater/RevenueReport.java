@@ -0,0 +1,293 @@
+package theater;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Revenue and volume credits aggregated across many invoices, per play, per play type and per
+ * customer. Totals are kept in {@code long}s so they do not overflow over a season.
+ *
+ * <p>Reports are built with a parallel reduction: every worker thread sums into its own
+ * accumulator and accumulators are only merged at the end, so threads never contend.</p>
+ *
+ * @non_null
+ */
+public final class RevenueReport {
+    private final PlayCatalog catalog;
+    private final long[] playRevenue;
+    private final long[] playCredits;
+    private final long[] playPerformances;
+    private final Map<String, long[]> typeTotals;
+    private final Map<String, long[]> customerTotals;
+    private final long totalRevenue;
+    private final long totalCredits;
+    private final long performanceCount;
+
+    private RevenueReport(PlayCatalog catalog, Accumulator accumulator) {
+        this.catalog = catalog;
+        this.playRevenue = accumulator.revenue;
+        this.playCredits = accumulator.credits;
+        this.playPerformances = accumulator.performances;
+        this.customerTotals = accumulator.customers;
+        this.typeTotals = new HashMap<>();
+        long revenue = 0;
+        long credits = 0;
+        long count = 0;
+        for (int i = 0; i < catalog.size(); i++) {
+            final long[] type = typeTotals.computeIfAbsent(catalog.getType(i), key -> new long[2]);
+            type[0] += playRevenue[i];
+            type[1] += playCredits[i];
+            revenue += playRevenue[i];
+            credits += playCredits[i];
+            count += playPerformances[i];
+        }
+        this.totalRevenue = revenue;
+        this.totalCredits = credits;
+        this.performanceCount = count;
+    }
+
+    /**
+     * Aggregates a stream of invoices in parallel using the default calculators.
+     *
+     * @param invoices the invoices to aggregate
+     * @param catalog  the play catalog
+     * @return the report
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public static RevenueReport of(Stream<Invoice> invoices, PlayCatalog catalog) {
+        return of(invoices, catalog, CalculatorRegistry.getDefault());
+    }
+
+    /**
+     * Aggregates a stream of invoices in parallel.
+     *
+     * @param invoices the invoices to aggregate
+     * @param catalog  the play catalog
+     * @param registry the calculators to price each play type with
+     * @return the report
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public static RevenueReport of(Stream<Invoice> invoices, PlayCatalog catalog, CalculatorRegistry registry) {
+        final AbstractPerformanceCalculator[] calculators = catalog.calculators(registry);
+        final Accumulator result = invoices.parallel().collect(
+                () -> new Accumulator(catalog, calculators),
+                Accumulator::add,
+                Accumulator::merge);
+        ColumnarInvoice.recordPriced(catalog, result.performances);
+        return new RevenueReport(catalog, result);
+    }
+
+    public long getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public long getTotalCredits() {
+        return totalCredits;
+    }
+
+    public long getPerformanceCount() {
+        return performanceCount;
+    }
+
+    /**
+     * Returns the revenue of one play.
+     *
+     * @param playID the play ID
+     * @return the revenue in cents, or 0 if the play is unknown
+     */
+    public long getPlayRevenue(String playID) {
+        final int index = catalog.indexOf(playID);
+        if (index < 0) {
+            return 0;
+        }
+        return playRevenue[index];
+    }
+
+    /**
+     * Returns the volume credits earned on one play.
+     *
+     * @param playID the play ID
+     * @return the volume credits, or 0 if the play is unknown
+     */
+    public long getPlayCredits(String playID) {
+        final int index = catalog.indexOf(playID);
+        if (index < 0) {
+            return 0;
+        }
+        return playCredits[index];
+    }
+
+    /**
+     * Returns the revenue of one play type.
+     *
+     * @param type the play type
+     * @return the revenue in cents, or 0 if no play has this type
+     */
+    public long getTypeRevenue(String type) {
+        return typeTotals.getOrDefault(type, new long[2])[0];
+    }
+
+    /**
+     * Returns the volume credits earned on one play type.
+     *
+     * @param type the play type
+     * @return the volume credits, or 0 if no play has this type
+     */
+    public long getTypeCredits(String type) {
+        return typeTotals.getOrDefault(type, new long[2])[1];
+    }
+
+    /**
+     * Returns the revenue from one customer.
+     *
+     * @param customer the customer's name
+     * @return the revenue in cents, or 0 if the customer has no invoices
+     */
+    public long getCustomerRevenue(String customer) {
+        return customerTotals.getOrDefault(customer, new long[2])[0];
+    }
+
+    /**
+     * Returns the volume credits earned by one customer.
+     *
+     * @param customer the customer's name
+     * @return the volume credits, or 0 if the customer has no invoices
+     */
+    public long getCustomerCredits(String customer) {
+        return customerTotals.getOrDefault(customer, new long[2])[1];
+    }
+
+    /**
+     * Returns the customers that appear in the aggregated invoices.
+     *
+     * @return an unmodifiable view of the customers
+     */
+    public Set<String> getCustomers() {
+        return Collections.unmodifiableSet(customerTotals.keySet());
+    }
+
+    /**
+     * Returns the plays with the highest revenue, highest first. Ties are broken by play ID.
+     *
+     * @param n the maximum number of plays to return
+     * @return up to {@code n} plays that were performed at least once
+     */
+    public List<PlayTotals> topPlaysByRevenue(int n) {
+        final List<PlayTotals> result = new ArrayList<>();
+        for (int i = 0; i < catalog.size(); i++) {
+            if (playPerformances[i] > 0) {
+                result.add(new PlayTotals(catalog.getPlayID(i), catalog.getPlay(i),
+                        playRevenue[i], playCredits[i], playPerformances[i]));
+            }
+        }
+        result.sort(Comparator.comparingLong(PlayTotals::getRevenue).reversed()
+                .thenComparing(PlayTotals::getPlayID));
+        return Collections.unmodifiableList(result.subList(0, Math.min(n, result.size())));
+    }
+
+    /**
+     * Aggregated totals of one play.
+     */
+    public static final class PlayTotals {
+        private final String playID;
+        private final Play play;
+        private final long revenue;
+        private final long credits;
+        private final long performances;
+
+        PlayTotals(String playID, Play play, long revenue, long credits, long performances) {
+            this.playID = playID;
+            this.play = play;
+            this.revenue = revenue;
+            this.credits = credits;
+            this.performances = performances;
+        }
+
+        public String getPlayID() {
+            return playID;
+        }
+
+        public Play getPlay() {
+            return play;
+        }
+
+        public long getRevenue() {
+            return revenue;
+        }
+
+        public long getCredits() {
+            return credits;
+        }
+
+        public long getPerformances() {
+            return performances;
+        }
+    }
+
+    /**
+     * Per-thread running totals, indexed by catalog play index.
+     */
+    private static final class Accumulator {
+        private final PlayCatalog catalog;
+        private final AbstractPerformanceCalculator[] calculators;
+        private final long[] revenue;
+        private final long[] credits;
+        private final long[] performances;
+        private final Map<String, long[]> customers = new HashMap<>();
+
+        Accumulator(PlayCatalog catalog, AbstractPerformanceCalculator[] calculators) {
+            this.catalog = catalog;
+            this.calculators = calculators;
+            this.revenue = new long[catalog.size()];
+            this.credits = new long[catalog.size()];
+            this.performances = new long[catalog.size()];
+        }
+
+        void add(Invoice invoice) {
+            long invoiceRevenue = 0;
+            long invoiceCredits = 0;
+            final List<Performance> rows = invoice.getPerformances();
+            for (int i = 0; i < rows.size(); i++) {
+                final Performance performance = rows.get(i);
+                final int index = catalog.indexOf(performance.getPlayID());
+                if (index < 0) {
+                    throw new IllegalArgumentException("Unknown play IDs for " + invoice.getCustomer() + ": ["
+                            + performance.getPlayID() + "]");
+                }
+                final AbstractPerformanceCalculator calculator = calculators[index];
+                if (calculator == null) {
+                    throw CalculatorRegistry.unknownType(catalog.getType(index));
+                }
+                final int amount = calculator.amountFor(performance.getAudience());
+                final int credit = calculator.volumeCredits(performance.getAudience());
+                revenue[index] += amount;
+                credits[index] += credit;
+                performances[index]++;
+                invoiceRevenue += amount;
+                invoiceCredits += credit;
+            }
+            final long[] customer = customers.computeIfAbsent(invoice.getCustomer(), key -> new long[2]);
+            customer[0] += invoiceRevenue;
+            customer[1] += invoiceCredits;
+        }
+
+        void merge(Accumulator other) {
+            for (int i = 0; i < revenue.length; i++) {
+                revenue[i] += other.revenue[i];
+                credits[i] += other.credits[i];
+                performances[i] += other.performances[i];
+            }
+            for (Map.Entry<String, long[]> entry : other.customers.entrySet()) {
+                final long[] customer = customers.computeIfAbsent(entry.getKey(), key -> new long[2]);
+                customer[0] += entry.getValue()[0];
+                customer[1] += entry.getValue()[1];
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package theater;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The progress journal of one shard of a {@link ShardedBatchRunner} run: an append-only text file
+ * with one line per committed checkpoint, giving the number of invoices rendered and the length
+ * of the shard's output at that point. The last line is {@code done} once the shard is finished.
+ * A line only counts once it ends in a newline, so a line torn by a crash is ignored.
+ *
+ * @non_null
+ */
+final class ShardJournal {
+    static final String CHECKPOINT = "checkpoint";
+    static final String DONE = "done";
+
+    /** The position of a shard that has not committed anything yet. */
+    static final Checkpoint START = new Checkpoint(0, 0, false);
+
+    private ShardJournal() {
+    }
+
+    /**
+     * Reads the last committed checkpoint.
+     *
+     * @param journal the journal file; it need not exist
+     * @return the last checkpoint, or {@link #START} if nothing was committed
+     * @throws IOException if the journal cannot be read
+     */
+    static Checkpoint read(Path journal) throws IOException {
+        if (!Files.exists(journal)) {
+            return START;
+        }
+        final String text = new String(Files.readAllBytes(journal), StandardCharsets.UTF_8);
+        final List<String> lines = text.substring(0, text.lastIndexOf('\n') + 1).lines().toList();
+        Checkpoint result = START;
+        for (String line : lines) {
+            final String[] fields = line.split(" ");
+            if (fields.length != 3 || !(CHECKPOINT.equals(fields[0]) || DONE.equals(fields[0]))) {
+                throw new IllegalStateException("Malformed journal line in " + journal + ": " + line);
+            }
+            result = new Checkpoint(Long.parseLong(fields[1]), Long.parseLong(fields[2]), DONE.equals(fields[0]));
+        }
+        return result;
+    }
+
+    /**
+     * Reads the last committed checkpoint and cuts off a line torn by a crash, so that later
+     * checkpoints can be appended.
+     *
+     * @param journal the journal file; it need not exist
+     * @return the last checkpoint, or {@link #START} if nothing was committed
+     * @throws IOException if the journal cannot be read or written
+     */
+    static Checkpoint recover(Path journal) throws IOException {
+        final Checkpoint result = read(journal);
+        if (Files.exists(journal)) {
+            final byte[] bytes = Files.readAllBytes(journal);
+            int end = bytes.length;
+            while (end > 0 && bytes[end - 1] != '\n') {
+                end--;
+            }
+            if (end < bytes.length) {
+                try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+                    channel.truncate(end);
+                    channel.force(false);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Appends a checkpoint and forces it to disk, which commits it.
+     *
+     * @param journal    the journal file
+     * @param checkpoint the checkpoint to commit
+     * @throws IOException if the journal cannot be written
+     */
+    static void commit(Path journal, Checkpoint checkpoint) throws IOException {
+        final String line = (checkpoint.isDone() ? DONE : CHECKPOINT) + " " + checkpoint.getInvoices() + " "
+                + checkpoint.getBytes() + "\n";
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            final ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * How far a shard had got when a checkpoint was committed.
+     */
+    static final class Checkpoint {
+        private final long invoices;
+        private final long bytes;
+        private final boolean done;
+
+        Checkpoint(long invoices, long bytes, boolean done) {
+            this.invoices = invoices;
+            this.bytes = bytes;
+            this.done = done;
+        }
+
+        long getInvoices() {
+            return invoices;
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+
+        boolean isDone() {
+            return done;
+        }
+    }
+}
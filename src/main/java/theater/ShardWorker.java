@@ -0,0 +1,124 @@
+package theater;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Renders one shard of a {@link ShardedBatchRunner} run in its own process. The shard's invoices
+ * are read from a binary invoice file, with their positions in the whole batch in a parallel
+ * file of sequence numbers. Each statement is written to the shard output as its sequence
+ * number, its UTF-8 length and its bytes.
+ *
+ * <p>Every few invoices the output is forced to disk and a checkpoint is committed to the shard's
+ * {@link ShardJournal}. A restarted worker cuts the output back to the last checkpoint and skips
+ * the invoices it covers, so finished work is never rendered again.</p>
+ *
+ * @non_null
+ */
+public final class ShardWorker {
+    private static final int SEQUENCE_BYTES = Long.BYTES;
+    private static final int ARGUMENT_COUNT = 6;
+    private static final int USAGE_EXIT_CODE = 2;
+
+    private ShardWorker() {
+    }
+
+    /**
+     * Renders a shard, resuming from its last checkpoint.
+     *
+     * @param invoices           the shard's binary invoice file
+     * @param sequences          the shard's sequence numbers, one long per invoice
+     * @param output             the shard output
+     * @param journal            the shard journal
+     * @param format             the statement format
+     * @param checkpointInterval the number of invoices between checkpoints
+     * @return the number of invoices in the shard
+     * @throws IOException if reading or writing fails
+     * @throws IllegalArgumentException if an invoice refers to an unknown play type
+     */
+    static long run(Path invoices, Path sequences, Path output, Path journal, StatementFormat format,
+                    int checkpointInterval) throws IOException {
+        final ShardJournal.Checkpoint committed = ShardJournal.recover(journal);
+        if (committed.isDone()) {
+            return committed.getInvoices();
+        }
+        try (BinaryInvoiceFile source = new BinaryInvoiceFile(invoices);
+             DataInputStream sequenceIn = new DataInputStream(
+                     new BufferedInputStream(Files.newInputStream(sequences)));
+             FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(committed.getBytes());
+            channel.position(committed.getBytes());
+            for (long i = 0; i < committed.getInvoices(); i++) {
+                if (!source.next()) {
+                    throw new IllegalStateException("Journal " + journal + " is ahead of " + invoices);
+                }
+            }
+            sequenceIn.skipNBytes(committed.getInvoices() * SEQUENCE_BYTES);
+
+            final StatementEngine engine = new StatementEngine(source.getCatalog());
+            final CalculatorRegistry registry = CalculatorRegistry.getDefault();
+            final DataOutputStream out =
+                    new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            final StringBuilder text = new StringBuilder();
+            long count = committed.getInvoices();
+            long bytes = committed.getBytes();
+            while (source.next()) {
+                text.setLength(0);
+                engine.render(new StatementData(source.toColumnarInvoice(registry)), format, text);
+                final byte[] statement = text.toString().getBytes(StandardCharsets.UTF_8);
+                out.writeLong(sequenceIn.readLong());
+                out.writeInt(statement.length);
+                out.write(statement);
+                count++;
+                bytes += SEQUENCE_BYTES + Integer.BYTES + statement.length;
+                if (count % checkpointInterval == 0) {
+                    commit(out, channel, journal, new ShardJournal.Checkpoint(count, bytes, false));
+                }
+            }
+            commit(out, channel, journal, new ShardJournal.Checkpoint(count, bytes, true));
+            return count;
+        }
+    }
+
+    private static void commit(DataOutputStream out, FileChannel channel, Path journal,
+                               ShardJournal.Checkpoint checkpoint) throws IOException {
+        out.flush();
+        channel.force(false);
+        ShardJournal.commit(journal, checkpoint);
+    }
+
+    /**
+     * Runs one shard; started by {@link ShardedBatchRunner}.
+     *
+     * @param args the invoice file, sequence file, output file, journal file, format name and
+     *             checkpoint interval
+     */
+    public static void main(String[] args) {
+        if (args.length != ARGUMENT_COUNT) {
+            System.err.println("Usage: ShardWorker invoices sequences output journal format checkpointInterval");
+            System.exit(USAGE_EXIT_CODE);
+        }
+        try {
+            final long resumed = ShardJournal.read(Path.of(args[3])).getInvoices();
+            if (resumed > 0) {
+                System.out.println("Resuming from invoice " + resumed + " of " + args[0]);
+            }
+            final long count = run(Path.of(args[0]), Path.of(args[1]), Path.of(args[2]), Path.of(args[3]),
+                    StatementFormat.forName(args[4]), Integer.parseInt(args[5]));
+            System.out.println("Rendered " + count + " invoices to " + args[2]);
+        }
+        catch (IOException | RuntimeException exception) {
+            exception.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package theater;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Renders a large batch of invoices in several local worker processes, surviving crashes and
+ * restarts. Invoices are partitioned by a hash of their customer into shards, each shard is
+ * rendered by a {@link ShardWorker} process with its own output and progress journal, and the
+ * shard outputs are finally merged back into input order.
+ *
+ * <p>All state lives in a work directory. Running again with the same directory resumes: the
+ * partitioning is kept once complete, finished shards are skipped, and unfinished shards carry
+ * on from their last committed checkpoint. A directory can only be resumed by the run that
+ * created it; another input file, format, catalog or shard count is refused. The merged output
+ * is identical to rendering every invoice in input order on one thread, however the run was
+ * interrupted.</p>
+ *
+ * @non_null
+ */
+public class ShardedBatchRunner {
+    /** Number of invoices a worker renders between checkpoints. */
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 10_000;
+    private static final String PARTITION_MARKER = "partitioned";
+    private static final String MARKER_SHARDS = "shards";
+    private static final String MARKER_INPUT = "input";
+    private static final String MARKER_INPUT_SIZE = "inputSize";
+    private static final String MARKER_INPUT_MODIFIED = "inputModified";
+    private static final String MARKER_FORMAT = "format";
+    private static final String MARKER_CATALOG = "catalog";
+    private static final String MARKER_INVOICES = "invoices";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path workDir;
+    private final int shards;
+    private final StatementFormat format;
+    private final int checkpointInterval;
+
+    /**
+     * Creates a runner.
+     *
+     * @param workDir the directory holding the shard files and journals
+     * @param shards  the number of shards, and so of worker processes
+     * @param format  the statement format
+     * @throws IllegalArgumentException if shards is not positive
+     */
+    public ShardedBatchRunner(Path workDir, int shards, StatementFormat format) {
+        this(workDir, shards, format, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Creates a runner with the given checkpoint interval.
+     *
+     * @param workDir            the directory holding the shard files and journals
+     * @param shards             the number of shards, and so of worker processes
+     * @param format             the statement format
+     * @param checkpointInterval the number of invoices a worker renders between checkpoints
+     * @throws IllegalArgumentException if shards or checkpointInterval is not positive
+     */
+    public ShardedBatchRunner(Path workDir, int shards, StatementFormat format, int checkpointInterval) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shards);
+        }
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + checkpointInterval);
+        }
+        this.workDir = workDir;
+        this.shards = shards;
+        this.format = format;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * Returns the shard an invoice belongs to.
+     *
+     * @param customer the invoice's customer
+     * @param shards   the number of shards
+     * @return the shard index
+     */
+    static int shardOf(String customer, int shards) {
+        return Math.floorMod(Objects.hashCode(customer), shards);
+    }
+
+    /**
+     * Renders every invoice in a JSON invoice file, resuming any earlier run in the work directory.
+     *
+     * @param catalog  the play catalog
+     * @param invoices the invoices, in the {@code invoices.json} shape
+     * @param output   the file to write every statement to, in input order
+     * @return the number of statements written
+     * @throws IOException if a file cannot be read or written, or a worker fails
+     * @throws IllegalArgumentException if an invoice refers to an unknown play ID
+     * @throws IllegalStateException if the work directory belongs to a run with another shard count,
+     *                               input file, format or catalog
+     */
+    public long run(PlayCatalog catalog, Path invoices, Path output) throws IOException {
+        Files.createDirectories(workDir);
+        final long count = partition(catalog, invoices);
+        final List<Integer> failed = new ArrayList<>();
+        final List<Process> workers = new ArrayList<>();
+        final List<Integer> running = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            if (!ShardJournal.read(file(shard, "journal")).isDone()) {
+                workers.add(start(shard));
+                running.add(shard);
+            }
+        }
+        for (int i = 0; i < workers.size(); i++) {
+            try {
+                if (workers.get(i).waitFor() != 0) {
+                    failed.add(running.get(i));
+                }
+            }
+            catch (InterruptedException exception) {
+                workers.forEach(Process::destroy);
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for shard workers", exception);
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new IOException("Shards " + failed + " failed; see their logs in " + workDir);
+        }
+        return merge(count, output);
+    }
+
+    /**
+     * Splits the input into one binary invoice file and one sequence file per shard, unless a
+     * complete partitioning is already in the work directory.
+     *
+     * @return the number of invoices in the batch
+     */
+    private long partition(PlayCatalog catalog, Path invoices) throws IOException {
+        final Path marker = workDir.resolve(PARTITION_MARKER);
+        final Map<String, String> run = describeRun(catalog, invoices);
+        if (Files.exists(marker)) {
+            final Map<String, String> recorded = readMarker(marker);
+            for (Map.Entry<String, String> entry : run.entrySet()) {
+                if (!entry.getValue().equals(recorded.get(entry.getKey()))) {
+                    throw new IllegalStateException(workDir + " holds a run with " + entry.getKey() + " "
+                            + recorded.get(entry.getKey()) + ", not " + entry.getValue());
+                }
+            }
+            return Long.parseLong(recorded.get(MARKER_INVOICES));
+        }
+        final BinaryInvoiceWriter[] writers = new BinaryInvoiceWriter[shards];
+        final DataOutputStream[] sequences = new DataOutputStream[shards];
+        long count = 0;
+        try (InvoiceReader reader = InvoiceReader.open(invoices)) {
+            for (int shard = 0; shard < shards; shard++) {
+                Files.deleteIfExists(file(shard, "out"));
+                Files.deleteIfExists(file(shard, "journal"));
+                writers[shard] = new BinaryInvoiceWriter(buffered(file(shard, "bin")), catalog);
+                sequences[shard] = new DataOutputStream(buffered(file(shard, "seq")));
+            }
+            while (reader.hasNext()) {
+                final Invoice invoice = reader.next();
+                final int shard = shardOf(invoice.getCustomer(), shards);
+                writers[shard].write(invoice);
+                sequences[shard].writeLong(count++);
+            }
+        }
+        finally {
+            for (int shard = 0; shard < shards; shard++) {
+                if (writers[shard] != null) {
+                    writers[shard].close();
+                }
+                if (sequences[shard] != null) {
+                    sequences[shard].close();
+                }
+            }
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            force(file(shard, "bin"));
+            force(file(shard, "seq"));
+        }
+        final StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, String> entry : run.entrySet()) {
+            text.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        text.append(MARKER_INVOICES).append(' ').append(count).append('\n');
+        // the marker appears atomically and only once everything it vouches for is on disk
+        final Path temporary = marker.resolveSibling(PARTITION_MARKER + ".tmp");
+        Files.writeString(temporary, text, StandardCharsets.UTF_8);
+        force(temporary);
+        Files.move(temporary, marker, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * Describes what a run renders, so that a work directory is only resumed by the same run.
+     * The input is identified by its path, size and modification time.
+     */
+    private Map<String, String> describeRun(PlayCatalog catalog, Path invoices) throws IOException {
+        final Map<String, String> result = new LinkedHashMap<>();
+        result.put(MARKER_SHARDS, Integer.toString(shards));
+        result.put(MARKER_INPUT, invoices.toAbsolutePath().normalize().toString());
+        result.put(MARKER_INPUT_SIZE, Long.toString(Files.size(invoices)));
+        result.put(MARKER_INPUT_MODIFIED, Long.toString(Files.getLastModifiedTime(invoices).toMillis()));
+        result.put(MARKER_FORMAT, format.getName());
+        result.put(MARKER_CATALOG, Long.toHexString(catalog.getVersion()));
+        return result;
+    }
+
+    private static Map<String, String> readMarker(Path marker) throws IOException {
+        final Map<String, String> result = new HashMap<>();
+        for (String line : Files.readAllLines(marker, StandardCharsets.UTF_8)) {
+            final int space = line.indexOf(' ');
+            if (space < 0) {
+                throw new IllegalStateException("Malformed partition marker " + marker + ": " + line);
+            }
+            result.put(line.substring(0, space), line.substring(space + 1));
+        }
+        if (!result.containsKey(MARKER_INVOICES)) {
+            throw new IllegalStateException("Partition marker " + marker + " has no invoice count");
+        }
+        return result;
+    }
+
+    private static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private Process start(int shard) throws IOException {
+        final Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+        final ProcessBuilder builder = new ProcessBuilder(java.toString(),
+                "-cp", System.getProperty("java.class.path"),
+                ShardWorker.class.getName(),
+                file(shard, "bin").toString(),
+                file(shard, "seq").toString(),
+                file(shard, "out").toString(),
+                file(shard, "journal").toString(),
+                format.getName(),
+                Integer.toString(checkpointInterval));
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(ProcessBuilder.Redirect.appendTo(file(shard, "log").toFile()));
+        return builder.start();
+    }
+
+    /**
+     * Merges the shard outputs by sequence number. Each shard is already in sequence order, so
+     * a k-way merge restores the input order.
+     */
+    private long merge(long count, Path output) throws IOException {
+        final Path temporary = output.resolveSibling(output.getFileName() + ".tmp");
+        final PriorityQueue<ShardCursor> cursors = new PriorityQueue<>();
+        long written = 0;
+        try (OutputStream out = buffered(temporary)) {
+            for (int shard = 0; shard < shards; shard++) {
+                final ShardCursor cursor = new ShardCursor(file(shard, "out"));
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+                else {
+                    cursor.close();
+                }
+            }
+            while (!cursors.isEmpty()) {
+                final ShardCursor cursor = cursors.poll();
+                if (cursor.sequence != written) {
+                    cursor.close();
+                    throw new IllegalStateException("Shard outputs are missing statement " + written);
+                }
+                out.write(cursor.statement);
+                written++;
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+                else {
+                    cursor.close();
+                }
+            }
+        }
+        finally {
+            for (ShardCursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+        if (written != count) {
+            throw new IllegalStateException("Shard outputs hold " + written + " statements, expected " + count);
+        }
+        Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    private Path file(int shard, String extension) {
+        return workDir.resolve("shard-" + shard + "." + extension);
+    }
+
+    private static OutputStream buffered(Path file) throws IOException {
+        return new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+    }
+
+    /**
+     * Renders a JSON invoice file in worker processes.
+     *
+     * @param args the plays file, the invoices file, the output file, the work directory, the
+     *             number of shards, and optionally the format name
+     * @throws IOException if a file cannot be read or written, or a worker fails
+     */
+    public static void main(String[] args) throws IOException {
+        final Map<String, Play> plays;
+        try (InputStream in = Files.newInputStream(Path.of(args[0]))) {
+            plays = InvoiceReader.readPlays(in);
+        }
+        StatementFormat format = StatementFormat.PLAIN_TEXT;
+        if (args.length > 5) {
+            format = StatementFormat.forName(args[5]);
+        }
+        final ShardedBatchRunner runner = new ShardedBatchRunner(Path.of(args[3]), Integer.parseInt(args[4]), format);
+        final long count = runner.run(PlayCatalog.of(plays), Path.of(args[1]), Path.of(args[2]));
+        System.out.println("Rendered " + count + " statements to " + args[2]);
+    }
+
+    /**
+     * Reads one shard output record by record.
+     */
+    private static final class ShardCursor implements Comparable<ShardCursor>, AutoCloseable {
+        private final DataInputStream in;
+        private long sequence;
+        private byte[] statement;
+
+        ShardCursor(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+        }
+
+        boolean advance() throws IOException {
+            try {
+                sequence = in.readLong();
+            }
+            catch (EOFException exception) {
+                return false;
+            }
+            statement = new byte[in.readInt()];
+            in.readFully(statement);
+            return true;
+        }
+
+        @Override
+        public int compareTo(ShardCursor other) {
+            return Long.compare(sequence, other.sequence);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
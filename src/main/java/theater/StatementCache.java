@@ -0,0 +1,193 @@
+package theater;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of rendered statements with least-recently-used eviction. Entries are keyed by
+ * the invoice's content, the content version of the plays it was priced against and the output
+ * format, so changing a play's name or type can never return a stale statement. Safe to share
+ * between threads; rendering on a miss happens outside the lock.
+ *
+ * @non_null
+ */
+public class StatementCache {
+    private final int maxEntries;
+    private final Map<Key, String> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a cache holding at most {@code maxEntries} statements.
+     *
+     * @param maxEntries the maximum number of cached statements
+     * @throws IllegalArgumentException if maxEntries is not positive
+     */
+    public StatementCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(maxEntries, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+                final boolean result = size() > StatementCache.this.maxEntries;
+                if (result) {
+                    evictions.incrementAndGet();
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Returns the rendered statement for an invoice priced against a catalog, rendering and
+     * caching it on a miss.
+     *
+     * @param invoice the invoice
+     * @param catalog the play catalog
+     * @param format  the output format
+     * @return the rendered statement
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public String statement(Invoice invoice, PlayCatalog catalog, StatementFormat format) {
+        final Key key = new Key(invoice, catalog.getVersion(), format);
+        String result = lookup(key);
+        if (result == null) {
+            result = new StatementEngine(catalog).render(invoice, format);
+            store(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the rendered statement for an invoice priced against a play map, rendering and
+     * caching it on a miss. Only the plays the invoice refers to are part of the key.
+     *
+     * @param invoice the invoice
+     * @param plays   the plays map
+     * @param format  the output format
+     * @return the rendered statement
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public String statement(Invoice invoice, Map<String, Play> plays, StatementFormat format) {
+        long version = ContentHash.SEED;
+        for (Performance performance : invoice.getPerformances()) {
+            final Play play = plays.get(performance.getPlayID());
+            if (play != null) {
+                version = ContentHash.mix(ContentHash.mix(version, play.getName()), play.getType());
+            }
+        }
+        final Key key = new Key(invoice, version, format);
+        String result = lookup(key);
+        if (result == null) {
+            result = format.createPrinter(invoice, plays).statement();
+            store(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Removes every entry. Counters are not reset.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of cached statements.
+     *
+     * @return the current number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private String lookup(Key key) {
+        final String result;
+        synchronized (this) {
+            result = entries.get(key);
+        }
+        if (result == null) {
+            misses.incrementAndGet();
+        }
+        else {
+            hits.incrementAndGet();
+        }
+        return result;
+    }
+
+    private synchronized void store(Key key, String statement) {
+        entries.put(key, statement);
+    }
+
+    /**
+     * Cache key: the invoice's full content plus the plays' content version and the format.
+     * Invoice fields are compared exactly, so only the play version relies on hashing.
+     */
+    private static final class Key {
+        private final String customer;
+        private final String[] playIDs;
+        private final int[] audiences;
+        private final long playsVersion;
+        private final StatementFormat format;
+        private final int hash;
+
+        Key(Invoice invoice, long playsVersion, StatementFormat format) {
+            final List<Performance> performances = invoice.getPerformances();
+            this.customer = invoice.getCustomer();
+            this.playIDs = new String[performances.size()];
+            this.audiences = new int[performances.size()];
+            this.playsVersion = playsVersion;
+            this.format = format;
+            long content = ContentHash.mix(ContentHash.mix(playsVersion, customer), format.ordinal());
+            for (int i = 0; i < playIDs.length; i++) {
+                playIDs[i] = performances.get(i).getPlayID();
+                audiences[i] = performances.get(i).getAudience();
+                content = ContentHash.mix(ContentHash.mix(content, playIDs[i]), audiences[i]);
+            }
+            this.hash = Long.hashCode(content);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            final Key that = (Key) other;
+            return hash == that.hash
+                    && playsVersion == that.playsVersion
+                    && format == that.format
+                    && Objects.equals(customer, that.customer)
+                    && Arrays.equals(audiences, that.audiences)
+                    && Arrays.equals(playIDs, that.playIDs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package theater;
+
+import java.util.Arrays;
+
+/**
+ * An ordered set of corrections to a statement's performances: performances added, removed, or
+ * with their audience corrected. Changes are applied in the order they were recorded, and each
+ * row index refers to the statement as it stands when that change is applied, so a removal
+ * moves every later row up by one for the changes that follow it.
+ *
+ * <p>Instances are not thread-safe. A change set can be applied to any number of statements.</p>
+ *
+ * @non_null
+ */
+public final class StatementChanges {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private Kind[] kinds = new Kind[INITIAL_CAPACITY];
+    private int[] rows = new int[INITIAL_CAPACITY];
+    private int[] audiences = new int[INITIAL_CAPACITY];
+    private String[] playIDs = new String[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Records a performance appended to the end of the statement.
+     *
+     * @param playID   the play ID
+     * @param audience the audience size
+     * @return this change set
+     */
+    public StatementChanges add(String playID, int audience) {
+        return record(Kind.ADD, -1, playID, audience);
+    }
+
+    /**
+     * Records a performance removed from the statement.
+     *
+     * @param row the row index
+     * @return this change set
+     */
+    public StatementChanges remove(int row) {
+        return record(Kind.REMOVE, row, null, 0);
+    }
+
+    /**
+     * Records a correction to a performance's audience.
+     *
+     * @param row      the row index
+     * @param audience the corrected audience size
+     * @return this change set
+     */
+    public StatementChanges setAudience(int row, int audience) {
+        return record(Kind.SET_AUDIENCE, row, null, audience);
+    }
+
+    /**
+     * Returns the number of changes recorded.
+     *
+     * @return the number of changes
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every recorded change so the set can be reused.
+     */
+    public void clear() {
+        Arrays.fill(playIDs, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Applies every change to live statement data in order, reporting each affected row.
+     *
+     * @param data     the statement data to change
+     * @param listener told about each change after it is applied
+     * @throws IllegalArgumentException  if a play ID or play type is not known; earlier changes stay applied
+     * @throws IndexOutOfBoundsException if a row does not exist; earlier changes stay applied
+     */
+    void applyTo(LiveStatementData data, Listener listener) {
+        for (int i = 0; i < size; i++) {
+            switch (kinds[i]) {
+                case ADD:
+                    listener.added(data.append(playIDs[i], audiences[i]));
+                    break;
+                case REMOVE:
+                    data.remove(rows[i]);
+                    listener.removed(rows[i]);
+                    break;
+                default:
+                    data.setAudience(rows[i], audiences[i]);
+                    listener.changed(rows[i]);
+                    break;
+            }
+        }
+    }
+
+    private StatementChanges record(Kind kind, int row, String playID, int audience) {
+        if (size == kinds.length) {
+            final int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+            audiences = Arrays.copyOf(audiences, capacity);
+            playIDs = Arrays.copyOf(playIDs, capacity);
+        }
+        kinds[size] = kind;
+        rows[size] = row;
+        playIDs[size] = playID;
+        audiences[size] = audience;
+        size++;
+        return this;
+    }
+
+    private enum Kind {
+        ADD,
+        REMOVE,
+        SET_AUDIENCE
+    }
+
+    /**
+     * Receives the row affected by each applied change.
+     */
+    interface Listener {
+        /**
+         * Called after a performance was appended.
+         *
+         * @param row the new row's index
+         */
+        void added(int row);
+
+        /**
+         * Called after a performance was removed; later rows have moved up by one.
+         *
+         * @param row the removed row's index
+         */
+        void removed(int row);
+
+        /**
+         * Called after a performance's audience was corrected.
+         *
+         * @param row the row index
+         */
+        void changed(int row);
+    }
+}
@@ -1,18 +1,30 @@
 package theater;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 /**
- * Aggregates all computed data needed to render a statement.
+ * Aggregates all computed data needed to render a statement. Rows are held in a
+ * {@link ColumnarInvoice}; renderers read them by index, and {@link PerformanceData} row
+ * objects are only created if {@link #getPerformances()} is called.
+ *
+ * <p>Instances do not change once constructed and may be shared between threads without
+ * synchronization, provided a play map passed in is not changed either, since it is kept as
+ * given. The columns and the pricing version are final fields. The invoice, play map
+ * and row objects are derived on first use and published through volatile fields. Two threads
+ * that race on first use may each build them, but they build equal values. Subclasses that can
+ * change, such as {@link LiveStatementData}, state their own contract.</p>
  *
  * @non_null
  */
 public class StatementData {
-    private final Invoice invoice;
-    private final Map<String, Play> plays;
-    private final List<PerformanceData> performances = new ArrayList<>();
+    private final ColumnarInvoice columns;
+    private final long pricingVersion;
+    private volatile Invoice invoice;
+    private volatile Map<String, Play> plays;
+    private volatile List<PerformanceData> performances;
 
     /**
      * Builds the statement data from an invoice and play map.
@@ -21,21 +33,119 @@ public class StatementData {
      * @param plays   the lookup table of plays by ID
      */
     public StatementData(Invoice invoice, Map<String, Play> plays) {
+        this(invoice, plays, CalculatorRegistry.getDefault());
+    }
+
+    /**
+     * Builds the statement data from an invoice and play map, pricing with the given calculators.
+     *
+     * @param invoice  the source invoice
+     * @param plays    the lookup table of plays by ID
+     * @param registry the calculators to price each play type with
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public StatementData(Invoice invoice, Map<String, Play> plays, CalculatorRegistry registry) {
+        this(price(invoice, plays, registry), invoice, plays, PricingSnapshot.UNVERSIONED);
+    }
+
+    /**
+     * Builds the statement data from an invoice whose play IDs are resolved against a catalog.
+     *
+     * @param invoice the source invoice
+     * @param catalog the play catalog
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public StatementData(Invoice invoice, PlayCatalog catalog) {
+        this(invoice, catalog, CalculatorRegistry.getDefault());
+    }
+
+    /**
+     * Builds the statement data from an invoice whose play IDs are resolved against a catalog,
+     * pricing with the given calculators.
+     *
+     * @param invoice  the source invoice
+     * @param catalog  the play catalog
+     * @param registry the calculators to price each play type with
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public StatementData(Invoice invoice, PlayCatalog catalog, CalculatorRegistry registry) {
+        this(price(invoice, catalog, registry), invoice, null, PricingSnapshot.UNVERSIONED);
+    }
+
+    /**
+     * Builds the statement data from an invoice priced entirely against one pricing snapshot,
+     * and records the snapshot's version.
+     *
+     * @param invoice the source invoice
+     * @param pricing the catalog and calculators to price with
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public StatementData(Invoice invoice, PricingSnapshot pricing) {
+        this(price(invoice, pricing.getCatalog(), pricing.getRegistry()), invoice, null, pricing.getVersion());
+    }
+
+    /**
+     * Builds the statement data directly on an already priced columnar invoice.
+     *
+     * @param columns the priced invoice
+     */
+    public StatementData(ColumnarInvoice columns) {
+        this(columns, null, null, PricingSnapshot.UNVERSIONED);
+    }
+
+    private StatementData(ColumnarInvoice columns, Invoice invoice, Map<String, Play> plays, long pricingVersion) {
+        this.columns = columns;
         this.invoice = invoice;
         this.plays = plays;
+        this.pricingVersion = pricingVersion;
+    }
 
-        // Build the row data up front.
-        for (Performance p : invoice.getPerformances()) {
-            final Play play = plays.get(p.getPlayID());
-            final AbstractPerformanceCalculator calculator =
-                    AbstractPerformanceCalculator.createPerformanceCalculator(p, play);
+    /**
+     * Returns statement data that prices nothing up front. Asking only for the totals never
+     * builds rows; rows are priced the first time one is read.
+     *
+     * @param invoice the source invoice
+     * @param plays   the lookup table of plays by ID
+     * @return the lazy statement data
+     * @throws IllegalArgumentException if a play ID is not known; unknown play types are reported on first use
+     */
+    public static StatementData lazy(Invoice invoice, Map<String, Play> plays) {
+        return lazy(invoice, PlayCatalog.forInvoice(invoice, plays), CalculatorRegistry.getDefault());
+    }
+
+    /**
+     * Returns statement data that prices nothing up front, resolving play IDs against a catalog
+     * and pricing with the given calculators.
+     *
+     * @param invoice  the source invoice
+     * @param catalog  the play catalog
+     * @param registry the calculators to price each play type with
+     * @return the lazy statement data
+     */
+    public static StatementData lazy(Invoice invoice, PlayCatalog catalog, CalculatorRegistry registry) {
+        return new LazyStatementData(invoice, catalog, registry);
+    }
 
-            final int amount = calculator.amountFor();
-            final int credits = calculator.volumeCredits();
+    /**
+     * Constructor for subclasses that keep their own rows. Such subclasses must override every
+     * row and total accessor.
+     */
+    protected StatementData() {
+        this(null, null, null, PricingSnapshot.UNVERSIONED);
+    }
 
-            performances.add(new PerformanceData(p, play, amount, credits));
-        }
+    private static ColumnarInvoice price(Invoice invoice, Map<String, Play> plays, CalculatorRegistry registry) {
+        final long start = System.nanoTime();
+        final ColumnarInvoice result = ColumnarInvoice.of(invoice, plays, registry);
+        StatementMetrics.getDefault().recordStatementData(System.nanoTime() - start);
+        return result;
+    }
 
+    static ColumnarInvoice price(Invoice invoice, PlayCatalog catalog, CalculatorRegistry registry) {
+        final long start = System.nanoTime();
+        final ColumnarInvoice result = ColumnarInvoice.of(invoice, catalog, registry);
+        StatementMetrics.getDefault().recordStatementData(System.nanoTime() - start);
+        return result;
     }
 
     /**
@@ -44,42 +154,131 @@ public class StatementData {
      * @return the invoice customer's name
      */
     public String getCustomer() {
-        return invoice.getCustomer();
+        return columns.getCustomer();
+    }
+
+    /**
+     * Returns the number of performance rows.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return columns.size();
+    }
+
+    /**
+     * Returns the play ID of a row.
+     *
+     * @param row the row index
+     * @return the ID of the play
+     */
+    public String getPlayID(int row) {
+        return columns.getPlayID(row);
+    }
+
+    /**
+     * Returns the play name of a row.
+     *
+     * @param row the row index
+     * @return the display name of the play
+     */
+    public String getName(int row) {
+        return columns.getPlay(row).getName();
+    }
+
+    /**
+     * Returns the play type of a row.
+     *
+     * @param row the row index
+     * @return the type of the play
+     */
+    public String getType(int row) {
+        return columns.getPlay(row).getType();
+    }
+
+    /**
+     * Returns the audience size of a row.
+     *
+     * @param row the row index
+     * @return the audience size
+     */
+    public int getAudience(int row) {
+        return columns.getAudience(row);
+    }
+
+    /**
+     * Returns the amount of a row.
+     *
+     * @param row the row index
+     * @return the amount in cents
+     */
+    public int getAmount(int row) {
+        return columns.getAmount(row);
     }
 
     /**
-     * Returns the list of performance rows.
+     * Returns the volume credits of a row.
+     *
+     * @param row the row index
+     * @return the volume credits
+     */
+    public int getVolumeCredits(int row) {
+        return columns.getVolumeCredits(row);
+    }
+
+    /**
+     * Returns the list of performance rows, creating the row objects on first use.
      *
      * @return the list of computed performance rows
      */
     public List<PerformanceData> getPerformances() {
-        return performances;
+        List<PerformanceData> result = performances;
+        if (result == null) {
+            final List<PerformanceData> rows = new ArrayList<>(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                rows.add(new PerformanceData(new Performance(columns.getPlayID(i), columns.getAudience(i)),
+                        columns.getPlay(i), columns.getAmount(i), columns.getVolumeCredits(i)));
+            }
+            result = Collections.unmodifiableList(rows);
+            performances = result;
+        }
+        return result;
     }
 
     /**
-     * Computes the total amount across all performances.
+     * Returns the total amount across all performances.
      *
      * @return the total amount in cents
      */
     public int totalAmount() {
-        int result = 0;
-        for (PerformanceData perf : performances) {
-            result += perf.amountFor();
-        }
-        return result;
+        return columns.getTotalAmount();
     }
 
     /**
-     * Computes the total volume credits across all performances.
+     * Returns the total volume credits across all performances.
      *
      * @return the total volume credits
      */
     public int volumeCredits() {
-        int result = 0;
-        for (PerformanceData perf : performances) {
-            result += perf.volumeCredits();
-        }
-        return result;
+        return columns.getTotalVolumeCredits();
+    }
+
+    /**
+     * Returns the version of the pricing snapshot this statement was priced with.
+     *
+     * @return the version, or {@link PricingSnapshot#UNVERSIONED} if it was not priced from a snapshot
+     */
+    public long getPricingVersion() {
+        return pricingVersion;
+    }
+
+    /**
+     * Returns the priced columns backing this statement.
+     *
+     * @return the columnar invoice
+     */
+    public ColumnarInvoice getColumns() {
+        return columns;
     }
 
     // Accessors used by StatementPrinter (not otherwise required)
@@ -90,7 +289,12 @@ public class StatementData {
      * @return the backing invoice
      */
     public Invoice getInvoice() {
-        return invoice;
+        Invoice result = invoice;
+        if (result == null) {
+            result = columns.toInvoice();
+            invoice = result;
+        }
+        return result;
     }
 
     /**
@@ -99,6 +303,11 @@ public class StatementData {
      * @return the play map used for lookups
      */
     public Map<String, Play> getPlays() {
-        return plays;
+        Map<String, Play> result = plays;
+        if (result == null) {
+            result = columns.getCatalog().toMap();
+            plays = result;
+        }
+        return result;
     }
 }
@@ -0,0 +1,203 @@
+package theater;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Renders statements for any number of invoices from one play catalog and one set of
+ * calculators. Unlike {@link StatementPrinter}, an engine is not bound to an invoice: it is built
+ * once and then asked for each statement. It holds only immutable state and keeps nothing
+ * between calls, so one instance can be shared freely across threads.
+ *
+ * @non_null
+ */
+public final class StatementEngine {
+    private final PricingSnapshot pricing;
+    private final LineFragmentCache fragments;
+
+    /**
+     * Creates an engine pricing with the default calculators.
+     *
+     * @param catalog the play catalog invoices are priced against
+     */
+    public StatementEngine(PlayCatalog catalog) {
+        this(catalog, CalculatorRegistry.getDefault());
+    }
+
+    /**
+     * Creates an engine pricing with the given calculators.
+     *
+     * @param catalog  the play catalog invoices are priced against
+     * @param registry the calculators to price each play type with
+     */
+    public StatementEngine(PlayCatalog catalog, CalculatorRegistry registry) {
+        this(new PricingSnapshot(PricingSnapshot.UNVERSIONED, catalog, registry));
+    }
+
+    /**
+     * Creates an engine pricing against one pricing snapshot; statements record its version.
+     *
+     * @param pricing the catalog and calculators to price with
+     */
+    public StatementEngine(PricingSnapshot pricing) {
+        this(pricing, null);
+    }
+
+    private StatementEngine(PricingSnapshot pricing, LineFragmentCache fragments) {
+        this.pricing = pricing;
+        this.fragments = fragments;
+    }
+
+    /**
+     * Creates an engine for a play map, pricing with the default calculators.
+     *
+     * @param plays the lookup table of plays by ID
+     * @return the engine
+     */
+    public static StatementEngine of(Map<String, Play> plays) {
+        return new StatementEngine(PlayCatalog.of(plays));
+    }
+
+    public PricingSnapshot getPricing() {
+        return pricing;
+    }
+
+    /**
+     * Returns an engine that takes repeated statement lines from a line cache. The cache may be
+     * shared with other engines.
+     *
+     * @param cache the line cache
+     * @return the new engine
+     */
+    public StatementEngine withFragmentCache(LineFragmentCache cache) {
+        return new StatementEngine(pricing, cache);
+    }
+
+    /**
+     * Writes an invoice's statement to a stream as UTF-8. Cached lines are copied in already encoded.
+     * The encoding buffer is the calling thread's, reused across statements; callers on
+     * short-lived threads should keep a {@link StatementWriter} of their own and use
+     * {@link #writeTo(Invoice, StatementFormat, StatementWriter, OutputStream)}.
+     *
+     * @param invoice the invoice
+     * @param format  the output format
+     * @param out     the stream; it is not flushed or closed
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public void writeTo(Invoice invoice, StatementFormat format, OutputStream out) throws IOException {
+        writeTo(invoice, format, StatementWriter.forCurrentThread(), out);
+    }
+
+    /**
+     * Writes an invoice's statement to a stream as UTF-8 through a caller's writer.
+     *
+     * @param invoice the invoice
+     * @param format  the output format
+     * @param writer  the writer whose buffer to encode into
+     * @param out     the stream; it is not flushed or closed
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public void writeTo(Invoice invoice, StatementFormat format, StatementWriter writer, OutputStream out)
+            throws IOException {
+        writer.write(this, invoice, format, out);
+    }
+
+    /**
+     * Prices an invoice.
+     *
+     * @param invoice the invoice
+     * @return the statement data
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public StatementData prepare(Invoice invoice) {
+        return new StatementData(invoice, pricing);
+    }
+
+    /**
+     * Renders an invoice into a statement that can later be corrected without re-rendering the
+     * rows that did not change.
+     *
+     * @param invoice the invoice
+     * @param format  the output format
+     * @return the rendered statement
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public RenderedStatement renderCorrectable(Invoice invoice, StatementFormat format) {
+        final LiveStatementData data = LiveStatementData.of(invoice, pricing.getCatalog(), pricing.getRegistry());
+        return new RenderedStatement(data, format.getTemplate());
+    }
+
+    /**
+     * Renders an invoice as a plain-text statement.
+     *
+     * @param invoice the invoice
+     * @return the statement
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public String render(Invoice invoice) {
+        return render(invoice, StatementFormat.PLAIN_TEXT);
+    }
+
+    /**
+     * Renders an invoice as an HTML statement.
+     *
+     * @param invoice the invoice
+     * @return the statement
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public String renderHtml(Invoice invoice) {
+        return render(invoice, StatementFormat.HTML);
+    }
+
+    /**
+     * Renders an invoice in any format.
+     *
+     * @param invoice the invoice
+     * @param format  the output format
+     * @return the statement
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public String render(Invoice invoice, StatementFormat format) {
+        final StringBuilder result = new StringBuilder();
+        try {
+            render(prepare(invoice), format, result);
+        }
+        catch (IOException exception) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(exception);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Renders an invoice in any format to a character destination.
+     *
+     * @param invoice the invoice
+     * @param format  the output format
+     * @param out     the destination
+     * @throws IOException if the destination fails
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public void render(Invoice invoice, StatementFormat format, Appendable out) throws IOException {
+        render(prepare(invoice), format, out);
+    }
+
+    /**
+     * Renders already prepared statement data in any format to a character destination.
+     *
+     * @param data   the statement data
+     * @param format the output format
+     * @param out    the destination
+     * @throws IOException if the destination fails
+     */
+    public void render(StatementData data, StatementFormat format, Appendable out) throws IOException {
+        final StatementTemplate template = format.getTemplate();
+        final long start = System.nanoTime();
+        template.render(data, out, fragments);
+        StatementMetrics.getDefault().recordRender(template.getName(), System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,108 @@
+package theater;
+
+import java.util.Map;
+
+/**
+ * Output formats a statement can be rendered in.
+ */
+public enum StatementFormat {
+    PLAIN_TEXT("plain", "text/plain; charset=utf-8", StatementTemplate.PLAIN_TEXT) {
+        @Override
+        public StatementPrinter createPrinter(Invoice invoice, Map<String, Play> plays) {
+            return new StatementPrinter(invoice, plays);
+        }
+
+        @Override
+        public StatementPrinter createPrinter(StatementData data) {
+            return new StatementPrinter(data);
+        }
+    },
+    HTML("html", "text/html; charset=utf-8", StatementTemplate.HTML) {
+        @Override
+        public StatementPrinter createPrinter(Invoice invoice, Map<String, Play> plays) {
+            return new HTMLStatementPrinter(invoice, plays);
+        }
+
+        @Override
+        public StatementPrinter createPrinter(StatementData data) {
+            return new HTMLStatementPrinter(data);
+        }
+    },
+    CSV("csv", "text/csv; charset=utf-8", StatementTemplate.CSV),
+    JSON("json", "application/json", StatementTemplate.JSON),
+    NDJSON("ndjson", "application/x-ndjson", StatementTemplate.NDJSON);
+
+    private final String name;
+    private final String contentType;
+    private final StatementTemplate template;
+
+    StatementFormat(String name, String contentType, StatementTemplate template) {
+        this.name = name;
+        this.contentType = contentType;
+        this.template = template;
+    }
+
+    /**
+     * Looks up a format by its short name, such as {@code plain} or {@code ndjson}.
+     *
+     * @param name the short name
+     * @return the format
+     * @throws IllegalArgumentException if no format has that name
+     */
+    public static StatementFormat forName(String name) {
+        for (StatementFormat format : values()) {
+            if (format.name.equals(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown format: " + name);
+    }
+
+    /**
+     * Returns the short name of this format.
+     *
+     * @return the short name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the media type of statements in this format.
+     *
+     * @return the content type
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the compiled template statements in this format are rendered with.
+     *
+     * @return the template
+     */
+    public StatementTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * Creates a printer that renders the given invoice in this format.
+     *
+     * @param invoice the invoice to render
+     * @param plays   the plays map
+     * @return a printer for this format
+     */
+    public StatementPrinter createPrinter(Invoice invoice, Map<String, Play> plays) {
+        return new TemplateStatementPrinter(invoice, plays, template);
+    }
+
+    /**
+     * Creates a printer that renders prepared statement data in this format.
+     *
+     * @param data the prepared statement data
+     * @return a printer for this format
+     */
+    public StatementPrinter createPrinter(StatementData data) {
+        return new TemplateStatementPrinter(data, template);
+    }
+}
@@ -0,0 +1,210 @@
+package theater;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and timers for the billing hot paths: performances priced per play type, unknown play
+ * type failures, time to build {@link StatementData}, and time per statement for each renderer.
+ *
+ * <p>Recording only touches {@link LongAdder}s, so it stays cheap under contention and costs
+ * nothing beyond that when no one reads the figures. They can be read through {@link #snapshot()}
+ * or, once {@link #registerPlatformMBean()} has been called, over JMX as
+ * {@value #OBJECT_NAME}.</p>
+ *
+ * @non_null
+ */
+public final class StatementMetrics implements StatementMetricsMXBean {
+    /** The JMX name the default metrics are registered under. */
+    public static final String OBJECT_NAME = "theater:type=StatementMetrics";
+
+    private static final double P99 = 99;
+
+    private final ConcurrentMap<String, LongAdder> pricedByType = new ConcurrentHashMap<>();
+    private final LongAdder unknownPlayTypes = new LongAdder();
+    private final LatencyHistogram statementData = new LatencyHistogram();
+    private final ConcurrentMap<String, LatencyHistogram> renderers = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the process-wide metrics that the pricing and rendering code records into.
+     *
+     * @return the default metrics
+     */
+    public static StatementMetrics getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * Registers the default metrics with the platform MBean server. Registering again has no effect.
+     *
+     * @return the name the metrics are registered under
+     * @throws JMException if registration fails
+     */
+    public static ObjectName registerPlatformMBean() throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName(OBJECT_NAME);
+        synchronized (StatementMetrics.class) {
+            if (!server.isRegistered(name)) {
+                server.registerMBean(getDefault(), name);
+            }
+        }
+        return name;
+    }
+
+    void recordPriced(String type, long performances) {
+        LongAdder counter = pricedByType.get(type);
+        if (counter == null) {
+            counter = pricedByType.computeIfAbsent(type, key -> new LongAdder());
+        }
+        counter.add(performances);
+    }
+
+    void recordUnknownPlayType() {
+        unknownPlayTypes.increment();
+    }
+
+    void recordStatementData(long nanos) {
+        statementData.record(nanos);
+    }
+
+    void recordRender(String renderer, long nanos) {
+        LatencyHistogram histogram = renderers.get(renderer);
+        if (histogram == null) {
+            histogram = renderers.computeIfAbsent(renderer, key -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Returns the figures recorded so far.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        final Map<String, Long> priced = new TreeMap<>();
+        pricedByType.forEach((type, counter) -> priced.put(type, counter.sum()));
+        final Map<String, LatencyHistogram.Snapshot> rendered = new TreeMap<>();
+        renderers.forEach((renderer, histogram) -> rendered.put(renderer, histogram.snapshot()));
+        return new Snapshot(priced, unknownPlayTypes.sum(), statementData.snapshot(), rendered);
+    }
+
+    @Override
+    public Map<String, Long> getPerformancesPricedByType() {
+        return snapshot().getPerformancesPricedByType();
+    }
+
+    @Override
+    public long getUnknownPlayTypeFailures() {
+        return unknownPlayTypes.sum();
+    }
+
+    @Override
+    public long getStatementDataCount() {
+        return statementData.snapshot().getCount();
+    }
+
+    @Override
+    public long getStatementDataMeanNanos() {
+        return statementData.snapshot().getMeanNanos();
+    }
+
+    @Override
+    public long getStatementDataP99Nanos() {
+        return statementData.snapshot().getPercentileNanos(P99);
+    }
+
+    @Override
+    public long getStatementDataMaxNanos() {
+        return statementData.snapshot().getMaxNanos();
+    }
+
+    @Override
+    public Map<String, Long> getRenderCounts() {
+        return renderFigures(LatencyHistogram.Snapshot::getCount);
+    }
+
+    @Override
+    public Map<String, Long> getRenderMeanNanos() {
+        return renderFigures(LatencyHistogram.Snapshot::getMeanNanos);
+    }
+
+    @Override
+    public Map<String, Long> getRenderP99Nanos() {
+        return renderFigures(histogram -> histogram.getPercentileNanos(P99));
+    }
+
+    @Override
+    public void reset() {
+        pricedByType.values().forEach(LongAdder::reset);
+        unknownPlayTypes.reset();
+        statementData.reset();
+        renderers.values().forEach(LatencyHistogram::reset);
+    }
+
+    private Map<String, Long> renderFigures(ToLongFunction<LatencyHistogram.Snapshot> figure) {
+        final Map<String, Long> result = new TreeMap<>();
+        renderers.forEach((renderer, histogram) -> result.put(renderer, figure.applyAsLong(histogram.snapshot())));
+        return result;
+    }
+
+    /**
+     * An immutable view of the metrics at one point in time.
+     */
+    public static final class Snapshot {
+        private final Map<String, Long> pricedByType;
+        private final long unknownPlayTypeFailures;
+        private final LatencyHistogram.Snapshot statementData;
+        private final Map<String, LatencyHistogram.Snapshot> renderers;
+
+        Snapshot(Map<String, Long> pricedByType, long unknownPlayTypeFailures,
+                 LatencyHistogram.Snapshot statementData, Map<String, LatencyHistogram.Snapshot> renderers) {
+            this.pricedByType = Collections.unmodifiableMap(pricedByType);
+            this.unknownPlayTypeFailures = unknownPlayTypeFailures;
+            this.statementData = statementData;
+            this.renderers = Collections.unmodifiableMap(renderers);
+        }
+
+        public Map<String, Long> getPerformancesPricedByType() {
+            return pricedByType;
+        }
+
+        /**
+         * Returns how many performances of one play type have been priced.
+         *
+         * @param type the play type
+         * @return the count, or 0 if none were priced
+         */
+        public long getPerformancesPriced(String type) {
+            return pricedByType.getOrDefault(type, 0L);
+        }
+
+        public long getUnknownPlayTypeFailures() {
+            return unknownPlayTypeFailures;
+        }
+
+        public LatencyHistogram.Snapshot getStatementData() {
+            return statementData;
+        }
+
+        public Map<String, LatencyHistogram.Snapshot> getRenderers() {
+            return renderers;
+        }
+    }
+
+    /**
+     * Lazily created default instance.
+     */
+    private static final class DefaultHolder {
+        private static final StatementMetrics INSTANCE = new StatementMetrics();
+    }
+}
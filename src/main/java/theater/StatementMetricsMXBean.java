@@ -0,0 +1,78 @@
+package theater;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link StatementMetrics}. Durations are reported in nanoseconds; renderer
+ * figures are keyed by renderer name ({@code plain}, {@code html}, {@code csv}, ...).
+ */
+public interface StatementMetricsMXBean {
+
+    /**
+     * Returns how many performances have been priced, per play type.
+     *
+     * @return the counts by play type
+     */
+    Map<String, Long> getPerformancesPricedByType();
+
+    /**
+     * Returns how many times pricing failed because a play type had no calculator.
+     *
+     * @return the failure count
+     */
+    long getUnknownPlayTypeFailures();
+
+    /**
+     * Returns how many statement data objects have been built.
+     *
+     * @return the build count
+     */
+    long getStatementDataCount();
+
+    /**
+     * Returns the mean time to build statement data.
+     *
+     * @return the mean in nanoseconds
+     */
+    long getStatementDataMeanNanos();
+
+    /**
+     * Returns an upper bound for the 99th percentile time to build statement data.
+     *
+     * @return the bound in nanoseconds
+     */
+    long getStatementDataP99Nanos();
+
+    /**
+     * Returns the longest time taken to build statement data.
+     *
+     * @return the maximum in nanoseconds
+     */
+    long getStatementDataMaxNanos();
+
+    /**
+     * Returns how many statements each renderer has produced.
+     *
+     * @return the counts by renderer
+     */
+    Map<String, Long> getRenderCounts();
+
+    /**
+     * Returns each renderer's mean time per statement.
+     *
+     * @return the means in nanoseconds by renderer
+     */
+    Map<String, Long> getRenderMeanNanos();
+
+    /**
+     * Returns an upper bound for each renderer's 99th percentile time per statement.
+     *
+     * @return the bounds in nanoseconds by renderer
+     */
+    Map<String, Long> getRenderP99Nanos();
+
+    /**
+     * Clears every counter and histogram.
+     */
+    void reset();
+}
@@ -0,0 +1,480 @@
+package theater;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Renders a stream of invoices through four stages running on their own threads, so that
+ * parsing, pricing, rendering and writing overlap: parse pulls invoices from the source, price
+ * builds their {@link StatementData}, render formats them, and write encodes them to the output
+ * in input order.
+ *
+ * <p>The stages hand each other jobs from a fixed pool created up front, through bounded
+ * queues backed by preallocated arrays. A job keeps its text buffer from one invoice to the
+ * next, and at most as many invoices as there are jobs are in flight. When the writer falls
+ * behind the pool runs dry and the parser waits, so memory use stays flat however long the
+ * run. Pricing and rendering can use several threads each; parsing reads one sequential source
+ * and writing produces one ordered output, so those stages have one thread each.</p>
+ *
+ * <p>{@link #statistics()} may be called from any thread while a run is in progress. A pipeline
+ * runs one batch at a time.</p>
+ *
+ * @non_null
+ */
+public class StatementPipeline {
+    /** Number of jobs in flight when no capacity is given. */
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final StatementEngine engine;
+    private final StatementFormat format;
+    private final int capacity;
+    private final Stage parse;
+    private final Stage price;
+    private final Stage render;
+    private final Stage write;
+    private final List<Stage> stages;
+    private final Job[] pool;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    /**
+     * Creates a pipeline that splits the available processors between pricing and rendering.
+     *
+     * @param engine the engine to price and render with
+     * @param format the output format
+     */
+    public StatementPipeline(StatementEngine engine, StatementFormat format) {
+        this(engine, format, DEFAULT_CAPACITY, Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param engine        the engine to price and render with
+     * @param format        the output format
+     * @param capacity      the number of invoices that may be in flight at once
+     * @param priceThreads  the number of pricing threads
+     * @param renderThreads the number of rendering threads
+     * @throws IllegalArgumentException if capacity or a thread count is not positive
+     */
+    public StatementPipeline(StatementEngine engine, StatementFormat format, int capacity, int priceThreads,
+                             int renderThreads) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (priceThreads < 1 || renderThreads < 1) {
+            throw new IllegalArgumentException("Thread counts must be positive: " + priceThreads + ", "
+                    + renderThreads);
+        }
+        this.engine = engine;
+        this.format = format;
+        this.capacity = capacity;
+        this.parse = new Stage("parse", 1, capacity);
+        this.price = new Stage("price", priceThreads, capacity);
+        this.render = new Stage("render", renderThreads, capacity);
+        this.write = new Stage("write", 1, capacity);
+        this.stages = List.of(parse, price, render, write);
+        this.pool = new Job[capacity];
+        for (int i = 0; i < capacity; i++) {
+            pool[i] = new Job();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Renders every invoice from a source and writes the statements to a stream as UTF-8, in the
+     * order the source returned them.
+     *
+     * @param source the invoices; only the parse thread reads it
+     * @param out    the stream; it is flushed but not closed
+     * @return the number of statements written
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     * @throws IllegalStateException if the pipeline is already running, the source is malformed, or the
+     *                               calling thread is interrupted; the stage threads have stopped when
+     *                               this returns or throws
+     */
+    public long run(Iterator<Invoice> source, OutputStream out) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("The pipeline is already running");
+        }
+        try {
+            return runBatch(source, out);
+        }
+        finally {
+            running.set(false);
+        }
+    }
+
+    private long runBatch(Iterator<Invoice> source, OutputStream out) throws IOException {
+        for (Stage stage : stages) {
+            stage.reset();
+        }
+        for (Job job : pool) {
+            job.invoice = null;
+            job.data = null;
+            parse.queue.add(job);
+        }
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final List<Thread> threads = new ArrayList<>();
+        final AtomicInteger pricing = new AtomicInteger(price.threads);
+        final AtomicInteger rendering = new AtomicInteger(render.threads);
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+                WRITE_BUFFER_SIZE);
+        final long[] written = new long[1];
+        startNanos = System.nanoTime();
+        endNanos = 0;
+
+        threads.add(new Thread(() -> parse(source), "pipeline-parse"));
+        for (int i = 0; i < price.threads; i++) {
+            threads.add(new Thread(() -> price(pricing), "pipeline-price-" + i));
+        }
+        for (int i = 0; i < render.threads; i++) {
+            threads.add(new Thread(() -> render(rendering), "pipeline-render-" + i));
+        }
+        threads.add(new Thread(() -> written[0] = write(writer), "pipeline-write"));
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((failed, exception) -> {
+                if (failure.compareAndSet(null, exception)) {
+                    threads.forEach(Thread::interrupt);
+                }
+            });
+        }
+        threads.forEach(Thread::start);
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                }
+                catch (InterruptedException exception) {
+                    // stop the stages, but still wait for them so that no stage outlives the run
+                    interrupted = true;
+                    threads.forEach(Thread::interrupt);
+                }
+            }
+        }
+        endNanos = System.nanoTime();
+        for (Stage stage : stages) {
+            stage.queue.clear();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the pipeline");
+        }
+        rethrow(failure.get());
+        return written[0];
+    }
+
+    /**
+     * Returns throughput and queue depth for each stage, in pipeline order. During a run the
+     * throughput is measured up to now, afterwards over the whole run.
+     *
+     * @return the statistics of the parse, price, render and write stages
+     */
+    public List<StageStatistics> statistics() {
+        final long start = startNanos;
+        final long end = endNanos;
+        final long elapsed = start == 0 ? 0 : (end == 0 ? System.nanoTime() : end) - start;
+        final List<StageStatistics> result = new ArrayList<>();
+        for (Stage stage : stages) {
+            // free jobs wait in the parse queue; they are not backlog
+            final int depth = stage == parse ? 0 : stage.queue.size() + stage.held.get();
+            result.add(new StageStatistics(stage.name, stage.threads, stage.processed.sum(), stage.busyNanos.sum(),
+                    depth, elapsed));
+        }
+        return result;
+    }
+
+    private void parse(Iterator<Invoice> source) {
+        long sequence = 0;
+        while (true) {
+            final Job job = take(parse);
+            final long start = System.nanoTime();
+            if (!source.hasNext()) {
+                parse.queue.add(job);
+                for (int i = 0; i < price.threads; i++) {
+                    put(price, Job.END);
+                }
+                return;
+            }
+            job.sequence = sequence++;
+            job.invoice = source.next();
+            parse.done(start);
+            put(price, job);
+        }
+    }
+
+    private void price(AtomicInteger running) {
+        while (true) {
+            final Job job = take(price);
+            if (job == Job.END) {
+                if (running.decrementAndGet() == 0) {
+                    for (int i = 0; i < render.threads; i++) {
+                        put(render, Job.END);
+                    }
+                }
+                return;
+            }
+            final long start = System.nanoTime();
+            job.data = engine.prepare(job.invoice);
+            job.invoice = null;
+            price.done(start);
+            put(render, job);
+        }
+    }
+
+    private void render(AtomicInteger running) {
+        while (true) {
+            final Job job = take(render);
+            if (job == Job.END) {
+                if (running.decrementAndGet() == 0) {
+                    put(write, Job.END);
+                }
+                return;
+            }
+            final long start = System.nanoTime();
+            job.text.setLength(0);
+            try {
+                engine.render(job.data, format, job.text);
+            }
+            catch (IOException exception) {
+                // StringBuilder never throws
+                throw new UncheckedIOException(exception);
+            }
+            job.data = null;
+            render.done(start);
+            put(write, job);
+        }
+    }
+
+    private long write(Writer writer) {
+        // jobs arrive out of order; at most capacity are in flight, so sequence % capacity never collides
+        final Job[] pending = new Job[capacity];
+        long next = 0;
+        try {
+            while (true) {
+                final Job job = take(write);
+                if (job == Job.END) {
+                    writer.flush();
+                    return next;
+                }
+                pending[(int) (job.sequence % capacity)] = job;
+                write.held.incrementAndGet();
+                Job ready = pending[(int) (next % capacity)];
+                while (ready != null && ready.sequence == next) {
+                    final long start = System.nanoTime();
+                    writer.append(ready.text);
+                    pending[(int) (next % capacity)] = null;
+                    write.held.decrementAndGet();
+                    write.done(start);
+                    parse.queue.add(ready);
+                    next++;
+                    ready = pending[(int) (next % capacity)];
+                }
+            }
+        }
+        catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static Job take(Stage stage) {
+        try {
+            return stage.queue.take();
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new StageCancelled(exception);
+        }
+    }
+
+    private static void put(Stage stage, Job job) {
+        try {
+            stage.queue.put(job);
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new StageCancelled(exception);
+        }
+    }
+
+    private static void rethrow(Throwable failure) throws IOException {
+        if (failure == null) {
+            return;
+        }
+        if (failure instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) failure).getCause();
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw new IllegalStateException(failure);
+    }
+
+    /**
+     * Throughput and backlog of one pipeline stage.
+     */
+    public static final class StageStatistics {
+        private final String name;
+        private final int threads;
+        private final long processed;
+        private final long busyNanos;
+        private final int queueDepth;
+        private final long elapsedNanos;
+
+        StageStatistics(String name, int threads, long processed, long busyNanos, int queueDepth,
+                        long elapsedNanos) {
+            this.name = name;
+            this.threads = threads;
+            this.processed = processed;
+            this.busyNanos = busyNanos;
+            this.queueDepth = queueDepth;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * Returns the number of invoices this stage has finished.
+         *
+         * @return the invoice count
+         */
+        public long getProcessed() {
+            return processed;
+        }
+
+        /**
+         * Returns the time this stage's threads spent working rather than waiting, summed over threads.
+         *
+         * @return the busy time in nanoseconds
+         */
+        public long getBusyNanos() {
+            return busyNanos;
+        }
+
+        /**
+         * Returns the number of invoices waiting for this stage.
+         *
+         * @return the queue depth
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * Returns the invoices finished per second since the run started.
+         *
+         * @return the throughput, or 0 before a run
+         */
+        public double getThroughput() {
+            if (elapsedNanos == 0) {
+                return 0;
+            }
+            return processed * NANOS_PER_SECOND / elapsedNanos;
+        }
+
+        /**
+         * Returns the share of its threads' time this stage spent working; a stage near 1 is the
+         * bottleneck.
+         *
+         * @return the utilization between 0 and 1, or 0 before a run
+         */
+        public double getUtilization() {
+            if (elapsedNanos == 0) {
+                return 0;
+            }
+            return Math.min(1.0, (double) busyNanos / ((double) elapsedNanos * threads));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d threads, %d done, %.0f/s, %.0f%% busy, %d queued", name, threads,
+                    processed, getThroughput(), getUtilization() * 100, queueDepth);
+        }
+    }
+
+    /**
+     * A stage's input queue and counters.
+     */
+    private static final class Stage {
+        private final String name;
+        private final int threads;
+        private final BlockingQueue<Job> queue;
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final AtomicInteger held = new AtomicInteger();
+
+        Stage(String name, int threads, int queueCapacity) {
+            this.name = name;
+            this.threads = threads;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        void done(long startNanos) {
+            processed.increment();
+            busyNanos.add(System.nanoTime() - startNanos);
+        }
+
+        void reset() {
+            queue.clear();
+            processed.reset();
+            busyNanos.reset();
+            held.set(0);
+        }
+    }
+
+    /**
+     * One invoice on its way through the pipeline; reused for later invoices once written.
+     */
+    private static final class Job {
+        /** Marks the end of the input; never carries an invoice. */
+        static final Job END = new Job();
+
+        private final StringBuilder text = new StringBuilder();
+        private long sequence;
+        private Invoice invoice;
+        private StatementData data;
+    }
+
+    /**
+     * Stops a stage thread because another stage failed.
+     */
+    private static final class StageCancelled extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        StageCancelled(InterruptedException cause) {
+            super(cause);
+        }
+    }
+}
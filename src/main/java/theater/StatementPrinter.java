@@ -1,18 +1,57 @@
 package theater;
 
-import java.text.NumberFormat;
-import java.util.Locale;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.Map;
 
 /**
- * This class generates a statement for a given invoice of performances.
+ * This class generates a statement for a given invoice of performances. A printer is bound to
+ * one invoice and kept for compatibility; to render many invoices, or from several threads,
+ * share one {@link StatementEngine} instead. Both render through the same templates.
  */
 public class StatementPrinter {
     private final StatementData statementData;
+    private final CalculatorRegistry registry;
 
     public StatementPrinter(Invoice invoice, Map<String, Play> plays) {
+        this(invoice, plays, CalculatorRegistry.getDefault());
+    }
+
+    /**
+     * Builds a printer that prices performances with the given calculators.
+     *
+     * @param invoice  the invoice data
+     * @param plays    the plays map
+     * @param registry the calculators to price each play type with
+     */
+    public StatementPrinter(Invoice invoice, Map<String, Play> plays, CalculatorRegistry registry) {
         // Split Phase: build data first, render later
-        this.statementData = new StatementData(invoice, plays);
+        this.statementData = new StatementData(invoice, plays, registry);
+        this.registry = registry;
+    }
+
+    /**
+     * Builds a printer for already prepared statement data, such as data built directly
+     * on a {@link ColumnarInvoice}.
+     *
+     * @param statementData the prepared statement data
+     */
+    public StatementPrinter(StatementData statementData) {
+        this(statementData, CalculatorRegistry.getDefault());
+    }
+
+    /**
+     * Builds a printer for already prepared statement data whose per-performance lookups
+     * price with the given calculators.
+     *
+     * @param statementData the prepared statement data
+     * @param registry      the calculators to price each play type with
+     */
+    public StatementPrinter(StatementData statementData, CalculatorRegistry registry) {
+        this.statementData = statementData;
+        this.registry = registry;
     }
 
     public String getInvoice() {
@@ -31,41 +70,99 @@ public class StatementPrinter {
      * @throws RuntimeException if one of the play types is not known
      */
     public String statement() {
-        return renderPlainText(statementData);
+        final StringBuilder result = new StringBuilder();
+        try {
+            timedRender(result);
+        }
+        catch (IOException exception) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(exception);
+        }
+        return result.toString();
     }
 
     /**
-     * Renders the prepared statement data in plain text format.
+     * Writes the statement as UTF-8 bytes to a stream, without building it as a {@code String}.
+     * The bytes are identical to {@code statement().getBytes(UTF_8)}. The encoding buffer is the
+     * calling thread's, reused across statements; callers on short-lived threads should keep a
+     * {@link StatementWriter} of their own and use {@link #writeTo(StatementWriter, OutputStream)}.
      *
-     * @param data the prepared statement data
-     * @return the formatted plain-text invoice string
-     */
-
-    private String renderPlainText(StatementData data) {
-        final StringBuilder result =
-                new StringBuilder("Statement for " + data.getCustomer() + System.lineSeparator());
-
-        for (PerformanceData perfData : data.getPerformances()) {
-            // one line per performance
-            result.append("  ")
-                    .append(perfData.getName())
-                    .append(": ")
-                    .append(usd(perfData.amountFor()))
-                    .append(" (")
-                    .append(perfData.getAudience())
-                    .append(" seats)")
-                    .append(System.lineSeparator());
-        }
+     * @param out the stream to write to; it is not flushed or closed
+     * @throws IOException if writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        writeTo(StatementWriter.forCurrentThread(), out);
+    }
 
-        result.append("Amount owed is ")
-                .append(usd(data.totalAmount()))
-                .append(System.lineSeparator())
-                .append("You earned ")
-                .append(data.volumeCredits())
-                .append(" credits")
-                .append(System.lineSeparator());
+    /**
+     * Writes the statement as UTF-8 bytes to a stream through a caller's writer.
+     *
+     * @param writer the writer whose buffer to encode into
+     * @param out    the stream to write to; it is not flushed or closed
+     * @throws IOException if writing fails
+     */
+    public void writeTo(StatementWriter writer, OutputStream out) throws IOException {
+        writer.write(this, out);
+    }
 
-        return result.toString();
+    /**
+     * Writes the statement as UTF-8 bytes to a channel, without building it as a {@code String}.
+     * The bytes are identical to {@code statement().getBytes(UTF_8)}. Like
+     * {@link #writeTo(OutputStream)}, it encodes through the calling thread's buffer.
+     *
+     * @param channel the channel to write to; it is not closed
+     * @throws IOException if writing fails
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        writeTo(StatementWriter.forCurrentThread(), channel);
+    }
+
+    /**
+     * Writes the statement as UTF-8 bytes to a channel through a caller's writer.
+     *
+     * @param writer  the writer whose buffer to encode into
+     * @param channel the channel to write to; it is not closed
+     * @throws IOException if writing fails
+     */
+    public void writeTo(StatementWriter writer, WritableByteChannel channel) throws IOException {
+        writer.write(this, channel);
+    }
+
+    /**
+     * Appends the statement to any character destination.
+     *
+     * @param out the destination
+     * @throws IOException if the destination fails
+     */
+    public void appendTo(Appendable out) throws IOException {
+        timedRender(out);
+    }
+
+    private void timedRender(Appendable out) throws IOException {
+        final long start = System.nanoTime();
+        render(statementData, out);
+        StatementMetrics.getDefault().recordRender(getRendererName(), System.nanoTime() - start);
+    }
+
+    /**
+     * Renders the prepared statement data. Subclasses override this to produce other formats.
+     *
+     * @param data the prepared statement data
+     * @param out  the destination
+     * @throws IOException if the destination fails
+     */
+    protected void render(StatementData data, Appendable out) throws IOException {
+        StatementTemplate.PLAIN_TEXT.render(data, out);
+    }
+
+    /**
+     * Returns the name render times are recorded under in {@link StatementMetrics}. Subclasses
+     * that override {@link #render} should override this too.
+     *
+     * @return the renderer name
+     */
+    protected String getRendererName() {
+        return StatementTemplate.PLAIN_TEXT.getName();
     }
 
     protected StatementData getStatementData() {
@@ -79,8 +176,7 @@ public class StatementPrinter {
      */
 
     protected String usd(int amount) {
-        return NumberFormat.getCurrencyInstance(Locale.US)
-                .format(amount / (double) Constants.PERCENT_FACTOR);
+        return MoneyFormatter.usd(amount);
     }
 
     /**
@@ -91,9 +187,7 @@ public class StatementPrinter {
      * @return the amount owed in cents
      */
     public int getAmount(final Performance perf, final Play play) {
-        return AbstractPerformanceCalculator
-                .createPerformanceCalculator(perf, play)
-                .amountFor();
+        return registry.get(play.getType()).amountFor(perf);
     }
 
     /**
@@ -104,9 +198,7 @@ public class StatementPrinter {
      * @return the volume credits earned
      */
     public int getVolumeCredits(final Performance perf, final Play play) {
-        return AbstractPerformanceCalculator
-                .createPerformanceCalculator(perf, play)
-                .volumeCredits();
+        return registry.get(play.getType()).volumeCredits(perf);
     }
 
     /**
@@ -0,0 +1,310 @@
+package theater;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import javax.management.JMException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Small embedded HTTP service that renders statements, built only on the JDK's HTTP server.
+ *
+ * <p>{@code POST /statement?format=plain|html|csv|json|ndjson} with one invoice object (the shape
+ * of one element of {@code invoices.json}) as the body returns the rendered statement. Every
+ * request runs on its own virtual thread, so no thread pool has to be sized; instead at most
+ * {@code maxConcurrent} requests render at a time and the rest wait briefly for a permit before
+ * being turned away with {@code 503}. Each statement is priced against the {@link LivePricing}
+ * snapshot current when it arrives, whose version is returned in a {@code Pricing-Version}
+ * header, so plays and prices can be reloaded without a restart. Each response carries a
+ * {@code Server-Timing} header and the server keeps request counts and latency totals.</p>
+ *
+ * @non_null
+ */
+public class StatementServer {
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_BAD_REQUEST = 400;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_BAD_METHOD = 405;
+    private static final int HTTP_INTERNAL_ERROR = 500;
+    private static final int HTTP_UNAVAILABLE = 503;
+    private static final long DEFAULT_PERMIT_WAIT_MILLIS = 1000;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final int DEFAULT_PORT = 8080;
+    private static final String STATEMENT_PATH = "/statement";
+    private static final String FORMAT_PARAMETER = "format=";
+    private static final String PRICING_VERSION_HEADER = "Pricing-Version";
+
+    private final LivePricing pricing;
+    private final Semaphore permits;
+    private final long permitWaitMillis;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Creates a server that allows at most {@code maxConcurrent} statements to render at once.
+     *
+     * @param catalog       the play catalog invoices are priced against
+     * @param maxConcurrent the maximum number of requests rendered concurrently
+     * @throws IllegalArgumentException if maxConcurrent is not positive
+     */
+    public StatementServer(PlayCatalog catalog, int maxConcurrent) {
+        this(catalog, maxConcurrent, DEFAULT_PERMIT_WAIT_MILLIS);
+    }
+
+    /**
+     * Creates a server that allows at most {@code maxConcurrent} statements to render at once.
+     *
+     * @param catalog          the play catalog invoices are priced against
+     * @param maxConcurrent    the maximum number of requests rendered concurrently
+     * @param permitWaitMillis how long a request waits for a free slot before getting {@code 503}
+     * @throws IllegalArgumentException if maxConcurrent is not positive
+     */
+    public StatementServer(PlayCatalog catalog, int maxConcurrent, long permitWaitMillis) {
+        this(new LivePricing(catalog), maxConcurrent, permitWaitMillis);
+    }
+
+    /**
+     * Creates a server that prices against whatever snapshot is current when a request arrives,
+     * so plays and prices can be reloaded while it runs.
+     *
+     * @param pricing          the live pricing invoices are priced against
+     * @param maxConcurrent    the maximum number of requests rendered concurrently
+     * @param permitWaitMillis how long a request waits for a free slot before getting {@code 503}
+     * @throws IllegalArgumentException if maxConcurrent is not positive
+     */
+    public StatementServer(LivePricing pricing, int maxConcurrent, long permitWaitMillis) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("Concurrency limit must be positive: " + maxConcurrent);
+        }
+        this.pricing = pricing;
+        this.permits = new Semaphore(maxConcurrent);
+        this.permitWaitMillis = permitWaitMillis;
+    }
+
+    /**
+     * Returns the live pricing requests are priced against, for publishing new plays or prices.
+     *
+     * @return the live pricing
+     */
+    public LivePricing getPricing() {
+        return pricing;
+    }
+
+    /**
+     * Starts serving on the given address. Use port 0 to pick a free port.
+     *
+     * @param address the address to bind
+     * @throws IOException if the server cannot bind
+     * @throws IllegalStateException if the server is already started
+     */
+    public synchronized void start(InetSocketAddress address) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        server = HttpServer.create(address, 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext(STATEMENT_PATH, this::handle);
+        server.start();
+    }
+
+    /**
+     * Stops the server, giving in-flight requests up to {@code delaySeconds} to finish.
+     *
+     * @param delaySeconds the maximum time to wait for in-flight requests
+     */
+    public synchronized void stop(int delaySeconds) {
+        if (server != null) {
+            server.stop(delaySeconds);
+            executor.close();
+            server = null;
+            executor = null;
+        }
+    }
+
+    /**
+     * Returns the port the server is bound to.
+     *
+     * @return the bound port
+     * @throws IllegalStateException if the server is not started
+     */
+    public synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("Server not started");
+        }
+        return server.getAddress().getPort();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the mean time to handle a request, over all requests so far.
+     *
+     * @return the mean latency in nanoseconds, or 0 if there were no requests
+     */
+    public long getMeanLatencyNanos() {
+        final long count = requests.get();
+        if (count == 0) {
+            return 0;
+        }
+        return totalNanos.get() / count;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxNanos.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        final long start = System.nanoTime();
+        try (exchange) {
+            if (!STATEMENT_PATH.equals(exchange.getRequestURI().getPath())) {
+                respond(exchange, HTTP_NOT_FOUND, "Not found", start);
+                return;
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, HTTP_BAD_METHOD, "Use POST", start);
+                return;
+            }
+            if (!acquirePermit()) {
+                rejected.incrementAndGet();
+                respond(exchange, HTTP_UNAVAILABLE, "Too many concurrent requests", start);
+                return;
+            }
+            try {
+                final StatementFormat format = parseFormat(exchange.getRequestURI());
+                final Invoice invoice;
+                try (InputStream body = exchange.getRequestBody()) {
+                    invoice = InvoiceReader.readInvoice(body);
+                }
+                final StatementEngine engine = new StatementEngine(pricing.current());
+                final StatementData data = engine.prepare(invoice);
+                final StringBuilder statement = new StringBuilder();
+                engine.render(data, format, statement);
+                exchange.getResponseHeaders().set("Content-Type", format.getContentType());
+                exchange.getResponseHeaders().set(PRICING_VERSION_HEADER, Long.toString(data.getPricingVersion()));
+                respond(exchange, HTTP_OK, statement.toString(), start);
+            }
+            catch (IllegalArgumentException | IllegalStateException | UncheckedIOException exception) {
+                // a malformed or truncated invoice, or an unknown play, format or play type
+                failed.incrementAndGet();
+                respond(exchange, HTTP_BAD_REQUEST, describe(exception), start);
+            }
+            catch (RuntimeException exception) {
+                failed.incrementAndGet();
+                respond(exchange, HTTP_INTERNAL_ERROR, "Internal error: " + describe(exception), start);
+            }
+            finally {
+                permits.release();
+            }
+        }
+        finally {
+            final long elapsed = System.nanoTime() - start;
+            requests.incrementAndGet();
+            totalNanos.addAndGet(elapsed);
+            maxNanos.accumulate(elapsed);
+        }
+    }
+
+    private boolean acquirePermit() {
+        try {
+            return permits.tryAcquire(permitWaitMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static StatementFormat parseFormat(URI uri) {
+        final String query = uri.getQuery();
+        if (query == null) {
+            return StatementFormat.PLAIN_TEXT;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith(FORMAT_PARAMETER)) {
+                return StatementFormat.forName(parameter.substring(FORMAT_PARAMETER.length()));
+            }
+        }
+        return StatementFormat.PLAIN_TEXT;
+    }
+
+    private static String describe(RuntimeException exception) {
+        final String message = exception.getMessage();
+        if (message == null) {
+            return exception.getClass().getSimpleName();
+        }
+        return message;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body, long start) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        final double millis = (System.nanoTime() - start) / NANOS_PER_MILLI;
+        exchange.getResponseHeaders().set("Server-Timing", String.format("render;dur=%.3f", millis));
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Serves statements for the plays in a {@code plays.json} file.
+     *
+     * @param args the plays file, then optionally the port and the concurrency limit
+     * @throws IOException if the plays file cannot be read or the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        final Map<String, Play> plays;
+        try (InputStream in = Files.newInputStream(Path.of(args[0]))) {
+            plays = InvoiceReader.readPlays(in);
+        }
+        int port = DEFAULT_PORT;
+        if (args.length > 1) {
+            port = Integer.parseInt(args[1]);
+        }
+        int maxConcurrent = Runtime.getRuntime().availableProcessors() * 2;
+        if (args.length > 2) {
+            maxConcurrent = Integer.parseInt(args[2]);
+        }
+        try {
+            StatementMetrics.registerPlatformMBean();
+        }
+        catch (JMException exception) {
+            System.err.println("Metrics not exposed over JMX: " + exception.getMessage());
+        }
+        final StatementServer server = new StatementServer(PlayCatalog.of(plays), maxConcurrent);
+        server.start(new InetSocketAddress(port));
+        System.out.println("Serving statements on port " + server.getPort());
+    }
+}
@@ -0,0 +1,528 @@
+package theater;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A statement format compiled once into sequences of literal text and field segments, which are
+ * then rendered over any {@link StatementData} without re-parsing patterns.
+ *
+ * <p>A template has four parts: a header and footer rendered once, a row rendered per
+ * performance, and a separator rendered between rows. Parts are written with {@code ${field}}
+ * placeholders; {@code ${n}} is the platform line separator and {@code $$} is a literal
+ * {@code $}. Row fields ({@code playID}, {@code name}, {@code type}, {@code audience},
+ * {@code amount}, {@code amountCents}, {@code credits}) may only be used in the row part;
+ * statement fields ({@code customer}, {@code totalAmount}, {@code totalAmountCents},
+ * {@code totalCredits}, {@code rows}) may be used anywhere. Text fields are escaped for the
+ * template's {@link Escaping}.</p>
+ *
+ * @non_null
+ */
+public final class StatementTemplate {
+
+    /** The plain-text statement. */
+    public static final StatementTemplate PLAIN_TEXT = compile("plain",
+            "Statement for ${customer}${n}",
+            "  ${name}: ${amount} (${audience} seats)${n}",
+            "",
+            "Amount owed is ${totalAmount}${n}You earned ${totalCredits} credits${n}",
+            Escaping.NONE);
+
+    /** The HTML statement. */
+    public static final StatementTemplate HTML = compile("html",
+            "<h1>Statement for ${customer}</h1>${n}<table>${n} <caption>Statement for ${customer}</caption>${n}"
+                    + " <tr><th>play</th><th>seats</th><th>cost</th></tr>${n}",
+            " <tr><td>${name}</td><td>${audience}</td><td>${amount}</td></tr>${n}",
+            "",
+            "</table>${n}<p>Amount owed is <em>${totalAmount}</em></p>${n}"
+                    + "<p>You earned <em>${totalCredits}</em> credits</p>${n}",
+            Escaping.HTML);
+
+    /** One CSV line per performance after a header line; amounts are in cents. */
+    public static final StatementTemplate CSV = compile("csv",
+            "customer,playID,play,type,audience,amount,credits\n",
+            "${customer},${playID},${name},${type},${audience},${amountCents},${credits}\n",
+            "",
+            "",
+            Escaping.CSV);
+
+    /** The statement as an indented JSON document; amounts are in cents. */
+    public static final StatementTemplate JSON = compile("json",
+            "{\n  \"customer\": \"${customer}\",\n  \"performances\": [",
+            "\n    {\"playID\": \"${playID}\", \"play\": \"${name}\", \"type\": \"${type}\", "
+                    + "\"audience\": ${audience}, \"amount\": ${amountCents}, \"credits\": ${credits}}",
+            ",",
+            "\n  ],\n  \"totalAmount\": ${totalAmountCents},\n  \"volumeCredits\": ${totalCredits}\n}\n",
+            Escaping.JSON);
+
+    /** The statement as one compact JSON object on a single line; amounts are in cents. */
+    public static final StatementTemplate NDJSON = compile("ndjson",
+            "{\"customer\":\"${customer}\",\"performances\":[",
+            "{\"playID\":\"${playID}\",\"play\":\"${name}\",\"type\":\"${type}\","
+                    + "\"audience\":${audience},\"amount\":${amountCents},\"credits\":${credits}}",
+            ",",
+            "],\"totalAmount\":${totalAmountCents},\"volumeCredits\":${totalCredits}}\n",
+            Escaping.JSON);
+
+    /** The name of templates compiled without one. */
+    static final String CUSTOM_NAME = "custom";
+
+    private final String name;
+    private final Object[] header;
+    private final Object[] row;
+    private final Object[] separator;
+    private final Object[] footer;
+    private final Escaping escaping;
+    private final boolean rowCacheable;
+    private final boolean stableRows;
+
+    private StatementTemplate(String name, Object[] header, Object[] row, Object[] separator, Object[] footer,
+                              Escaping escaping) {
+        this.name = name;
+        this.header = header;
+        this.row = row;
+        this.separator = separator;
+        this.footer = footer;
+        this.escaping = escaping;
+        this.rowCacheable = dependsOnRowOnly(row);
+        this.stableRows = !dependsOnTotals(row) && !dependsOnTotals(separator);
+    }
+
+    /**
+     * Compiles a template.
+     *
+     * @param header    rendered once before the rows
+     * @param row       rendered once per performance
+     * @param separator rendered between consecutive rows
+     * @param footer    rendered once after the rows
+     * @param escaping  how text fields are escaped
+     * @return the compiled template
+     * @throws IllegalArgumentException if a placeholder is unknown, unterminated or out of place
+     */
+    public static StatementTemplate compile(String header, String row, String separator, String footer,
+                                            Escaping escaping) {
+        return compile(CUSTOM_NAME, header, row, separator, footer, escaping);
+    }
+
+    /**
+     * Compiles a named template. The name identifies the template in {@link StatementMetrics}.
+     *
+     * @param name      the template name
+     * @param header    rendered once before the rows
+     * @param row       rendered once per performance
+     * @param separator rendered between consecutive rows
+     * @param footer    rendered once after the rows
+     * @param escaping  how text fields are escaped
+     * @return the compiled template
+     * @throws IllegalArgumentException if a placeholder is unknown, unterminated or out of place
+     */
+    public static StatementTemplate compile(String name, String header, String row, String separator,
+                                            String footer, Escaping escaping) {
+        return new StatementTemplate(name, parse(header, false), parse(row, true), parse(separator, false),
+                parse(footer, false), escaping);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Renders statement data with this template.
+     *
+     * @param data the statement data
+     * @param out  the destination
+     * @throws IOException if the destination fails
+     */
+    public void render(StatementData data, Appendable out) throws IOException {
+        render(data, out, null);
+    }
+
+    /**
+     * Renders statement data with this template, taking rows from a line cache where possible.
+     *
+     * @param data      the statement data
+     * @param out       the destination
+     * @param fragments the line cache, or null to render every row
+     * @throws IOException if the destination fails
+     */
+    public void render(StatementData data, Appendable out, LineFragmentCache fragments) throws IOException {
+        final boolean cached = fragments != null && rowCacheable;
+        write(header, data, 0, out);
+        final int size = data.size();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                write(separator, data, i, out);
+            }
+            if (cached) {
+                fragments.appendRow(this, data, i, out);
+            }
+            else {
+                write(row, data, i, out);
+            }
+        }
+        write(footer, data, 0, out);
+    }
+
+    /**
+     * Renders statement data with this template into a string.
+     *
+     * @param data the statement data
+     * @return the rendered statement
+     */
+    public String render(StatementData data) {
+        final StringBuilder result = new StringBuilder();
+        try {
+            render(data, result);
+        }
+        catch (IOException exception) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(exception);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns whether a rendered row and its separator stay valid when other rows change, which
+     * holds unless they show totals or the row count.
+     *
+     * @return true if rows only need re-rendering when they change themselves
+     */
+    boolean hasStableRows() {
+        return stableRows;
+    }
+
+    /**
+     * Renders only the header part.
+     *
+     * @param data the statement data
+     * @param out  the destination
+     * @throws IOException if the destination fails
+     */
+    void renderHeader(StatementData data, Appendable out) throws IOException {
+        write(header, data, 0, out);
+    }
+
+    /**
+     * Renders only the row part for one row.
+     *
+     * @param data the statement data
+     * @param rowIndex the row to render
+     * @param out  the destination
+     * @throws IOException if the destination fails
+     */
+    void renderRow(StatementData data, int rowIndex, Appendable out) throws IOException {
+        write(row, data, rowIndex, out);
+    }
+
+    /**
+     * Renders only the separator placed before a row.
+     *
+     * @param data the statement data
+     * @param rowIndex the row that follows the separator
+     * @param out  the destination
+     * @throws IOException if the destination fails
+     */
+    void renderSeparator(StatementData data, int rowIndex, Appendable out) throws IOException {
+        write(separator, data, rowIndex, out);
+    }
+
+    /**
+     * Renders only the footer part.
+     *
+     * @param data the statement data
+     * @param out  the destination
+     * @throws IOException if the destination fails
+     */
+    void renderFooter(StatementData data, Appendable out) throws IOException {
+        write(footer, data, 0, out);
+    }
+
+    private void write(Object[] segments, StatementData data, int rowIndex, Appendable out) throws IOException {
+        for (Object segment : segments) {
+            if (segment instanceof String) {
+                out.append((String) segment);
+            }
+            else {
+                ((Field) segment).write(data, rowIndex, out, escaping);
+            }
+        }
+    }
+
+    private static boolean dependsOnRowOnly(Object[] segments) {
+        for (Object segment : segments) {
+            if (segment instanceof Field && !((Field) segment).isRowField()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean dependsOnTotals(Object[] segments) {
+        for (Object segment : segments) {
+            if (segment instanceof Field && !((Field) segment).isRowField() && segment != Field.CUSTOMER) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object[] parse(String pattern, boolean rowPart) {
+        final List<Object> result = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            final char c = pattern.charAt(i);
+            if (c != '$') {
+                literal.append(c);
+                i++;
+            }
+            else if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '$') {
+                literal.append('$');
+                i += 2;
+            }
+            else if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '{') {
+                final int end = pattern.indexOf('}', i);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated placeholder in: " + pattern);
+                }
+                final String name = pattern.substring(i + 2, end);
+                if ("n".equals(name)) {
+                    literal.append(System.lineSeparator());
+                }
+                else {
+                    final Field field = Field.named(name);
+                    if (field.isRowField() && !rowPart) {
+                        throw new IllegalArgumentException("Row field ${" + name + "} used outside the row part");
+                    }
+                    if (literal.length() > 0) {
+                        result.add(literal.toString());
+                        literal.setLength(0);
+                    }
+                    result.add(field);
+                }
+                i = end + 1;
+            }
+            else {
+                throw new IllegalArgumentException("Stray '$' in: " + pattern);
+            }
+        }
+        if (literal.length() > 0) {
+            result.add(literal.toString());
+        }
+        return result.toArray();
+    }
+
+    /**
+     * How text fields are escaped when rendered.
+     */
+    public enum Escaping {
+        /** Text is written as is. */
+        NONE {
+            @Override
+            void appendText(Appendable out, CharSequence text) throws IOException {
+                out.append(text);
+            }
+        },
+        /** Text containing commas, quotes or line breaks is quoted, with quotes doubled (RFC 4180). */
+        CSV {
+            @Override
+            void appendText(Appendable out, CharSequence text) throws IOException {
+                boolean quote = false;
+                for (int i = 0; i < text.length() && !quote; i++) {
+                    final char c = text.charAt(i);
+                    quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+                }
+                if (!quote) {
+                    out.append(text);
+                    return;
+                }
+                out.append('"');
+                for (int i = 0; i < text.length(); i++) {
+                    final char c = text.charAt(i);
+                    if (c == '"') {
+                        out.append('"');
+                    }
+                    out.append(c);
+                }
+                out.append('"');
+            }
+
+            @Override
+            void appendUsd(Appendable out, long cents) throws IOException {
+                // formatted amounts contain thousands separators, so they are always quoted
+                out.append('"');
+                MoneyFormatter.appendUsd(out, cents);
+                out.append('"');
+            }
+        },
+        /** Text is escaped for use in HTML element content and quoted attribute values. */
+        HTML {
+            @Override
+            void appendText(Appendable out, CharSequence text) throws IOException {
+                for (int i = 0; i < text.length(); i++) {
+                    final char c = text.charAt(i);
+                    if (c == '&') {
+                        out.append("&amp;");
+                    }
+                    else if (c == '<') {
+                        out.append("&lt;");
+                    }
+                    else if (c == '>') {
+                        out.append("&gt;");
+                    }
+                    else if (c == '"') {
+                        out.append("&quot;");
+                    }
+                    else if (c == '\'') {
+                        out.append("&#39;");
+                    }
+                    else {
+                        out.append(c);
+                    }
+                }
+            }
+        },
+        /** Text is escaped for use inside a JSON string literal. */
+        JSON {
+            @Override
+            void appendText(Appendable out, CharSequence text) throws IOException {
+                for (int i = 0; i < text.length(); i++) {
+                    final char c = text.charAt(i);
+                    if (c == '"' || c == '\\') {
+                        out.append('\\').append(c);
+                    }
+                    else if (c == '\n') {
+                        out.append("\\n");
+                    }
+                    else if (c == '\r') {
+                        out.append("\\r");
+                    }
+                    else if (c == '\t') {
+                        out.append("\\t");
+                    }
+                    else if (c < ' ') {
+                        out.append("\\u00");
+                        out.append(HEX_DIGITS.charAt(c >> HEX_SHIFT));
+                        out.append(HEX_DIGITS.charAt(c & HEX_MASK));
+                    }
+                    else {
+                        out.append(c);
+                    }
+                }
+            }
+        };
+
+        private static final String HEX_DIGITS = "0123456789abcdef";
+        private static final int HEX_SHIFT = 4;
+        private static final int HEX_MASK = 0xF;
+
+        abstract void appendText(Appendable out, CharSequence text) throws IOException;
+
+        void appendUsd(Appendable out, long cents) throws IOException {
+            MoneyFormatter.appendUsd(out, cents);
+        }
+    }
+
+    /**
+     * Values a template can refer to.
+     */
+    enum Field {
+        CUSTOMER("customer", false) {
+            @Override
+            void write(StatementData data, int row, Appendable out, Escaping escaping) throws IOException {
+                escaping.appendText(out, data.getCustomer());
+            }
+        },
+        TOTAL_AMOUNT("totalAmount", false) {
+            @Override
+            void write(StatementData data, int row, Appendable out, Escaping escaping) throws IOException {
+                escaping.appendUsd(out, data.totalAmount());
+            }
+        },
+        TOTAL_AMOUNT_CENTS("totalAmountCents", false) {
+            @Override
+            void write(StatementData data, int row, Appendable out, Escaping escaping) throws IOException {
+                MoneyFormatter.appendInteger(out, data.totalAmount());
+            }
+        },
+        TOTAL_CREDITS("totalCredits", false) {
+            @Override
+            void write(StatementData data, int row, Appendable out, Escaping escaping) throws IOException {
+                MoneyFormatter.appendInteger(out, data.volumeCredits());
+            }
+        },
+        ROWS("rows", false) {
+            @Override
+            void write(StatementData data, int row, Appendable out, Escaping escaping) throws IOException {
+                MoneyFormatter.appendInteger(out, data.size());
+            }
+        },
+        PLAY_ID("playID", true) {
+            @Override
+            void write(StatementData data, int row, Appendable out, Escaping escaping) throws IOException {
+                escaping.appendText(out, data.getPlayID(row));
+            }
+        },
+        NAME("name", true) {
+            @Override
+            void write(StatementData data, int row, Appendable out, Escaping escaping) throws IOException {
+                escaping.appendText(out, data.getName(row));
+            }
+        },
+        TYPE("type", true) {
+            @Override
+            void write(StatementData data, int row, Appendable out, Escaping escaping) throws IOException {
+                escaping.appendText(out, data.getType(row));
+            }
+        },
+        AUDIENCE("audience", true) {
+            @Override
+            void write(StatementData data, int row, Appendable out, Escaping escaping) throws IOException {
+                MoneyFormatter.appendInteger(out, data.getAudience(row));
+            }
+        },
+        AMOUNT("amount", true) {
+            @Override
+            void write(StatementData data, int row, Appendable out, Escaping escaping) throws IOException {
+                escaping.appendUsd(out, data.getAmount(row));
+            }
+        },
+        AMOUNT_CENTS("amountCents", true) {
+            @Override
+            void write(StatementData data, int row, Appendable out, Escaping escaping) throws IOException {
+                MoneyFormatter.appendInteger(out, data.getAmount(row));
+            }
+        },
+        CREDITS("credits", true) {
+            @Override
+            void write(StatementData data, int row, Appendable out, Escaping escaping) throws IOException {
+                MoneyFormatter.appendInteger(out, data.getVolumeCredits(row));
+            }
+        };
+
+        private final String placeholder;
+        private final boolean rowField;
+
+        Field(String placeholder, boolean rowField) {
+            this.placeholder = placeholder;
+            this.rowField = rowField;
+        }
+
+        static Field named(String name) {
+            for (Field field : values()) {
+                if (field.placeholder.equals(name)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Unknown template field: ${" + name + "}");
+        }
+
+        boolean isRowField() {
+            return rowField;
+        }
+
+        abstract void write(StatementData data, int row, Appendable out, Escaping escaping) throws IOException;
+    }
+}
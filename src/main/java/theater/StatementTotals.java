@@ -0,0 +1,116 @@
+package theater;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Totals-only pricing for callers that need an invoice's amount owed and volume credits but no
+ * rows, such as credit-limit checks. It walks the invoice's performances directly and prices
+ * them with calculators the catalog has already resolved, so a reused instance allocates nothing
+ * per invoice.
+ *
+ * <p>Instances are mutable and not thread-safe; keep one per thread and call
+ * {@link #accumulate(Invoice)} for each invoice.</p>
+ *
+ * @non_null
+ */
+public final class StatementTotals {
+    private final PlayCatalog catalog;
+    private final AbstractPerformanceCalculator[] calculators;
+    private int totalAmount;
+    private int volumeCredits;
+    private int performanceCount;
+
+    /**
+     * Creates a totals accumulator pricing with the default calculators.
+     *
+     * @param catalog the play catalog
+     */
+    public StatementTotals(PlayCatalog catalog) {
+        this(catalog, CalculatorRegistry.getDefault());
+    }
+
+    /**
+     * Creates a totals accumulator pricing with the given calculators.
+     *
+     * @param catalog  the play catalog
+     * @param registry the calculators to price each play type with
+     */
+    public StatementTotals(PlayCatalog catalog, CalculatorRegistry registry) {
+        this.catalog = catalog;
+        this.calculators = catalog.calculators(registry);
+    }
+
+    /**
+     * Prices one invoice's totals with a throwaway accumulator. Prefer reusing an instance on hot paths.
+     *
+     * @param invoice the invoice to price
+     * @param plays   the lookup table of plays by ID
+     * @return the totals
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public static StatementTotals of(Invoice invoice, Map<String, Play> plays) {
+        return new StatementTotals(PlayCatalog.forInvoice(invoice, plays)).accumulate(invoice);
+    }
+
+    /**
+     * Replaces the current totals with those of an invoice.
+     *
+     * @param invoice the invoice to price
+     * @return this accumulator
+     * @throws IllegalArgumentException if a play ID or play type is not known; the totals are then cleared
+     */
+    public StatementTotals accumulate(Invoice invoice) {
+        totalAmount = 0;
+        volumeCredits = 0;
+        performanceCount = 0;
+        final List<Performance> performances = invoice.getPerformances();
+        int amountSum = 0;
+        int creditSum = 0;
+        for (int i = 0; i < performances.size(); i++) {
+            final Performance performance = performances.get(i);
+            final int index = catalog.indexOf(performance.getPlayID());
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown play IDs for " + invoice.getCustomer() + ": ["
+                        + performance.getPlayID() + "]");
+            }
+            final AbstractPerformanceCalculator calculator = calculators[index];
+            if (calculator == null) {
+                throw CalculatorRegistry.unknownType(catalog.getType(index));
+            }
+            amountSum += calculator.amountFor(performance.getAudience());
+            creditSum += calculator.volumeCredits(performance.getAudience());
+        }
+        totalAmount = amountSum;
+        volumeCredits = creditSum;
+        performanceCount = performances.size();
+        return this;
+    }
+
+    /**
+     * Returns the total amount of the last invoice accumulated.
+     *
+     * @return the total amount in cents
+     */
+    public int getTotalAmount() {
+        return totalAmount;
+    }
+
+    /**
+     * Returns the total volume credits of the last invoice accumulated.
+     *
+     * @return the total volume credits
+     */
+    public int getVolumeCredits() {
+        return volumeCredits;
+    }
+
+    /**
+     * Returns how many performances the last invoice accumulated had.
+     *
+     * @return the performance count
+     */
+    public int getPerformanceCount() {
+        return performanceCount;
+    }
+}
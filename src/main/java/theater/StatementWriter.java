@@ -0,0 +1,254 @@
+package theater;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Encodes rendered statements to UTF-8 straight into a reusable byte buffer that is drained to an
+ * {@link OutputStream} or {@link WritableByteChannel} whenever it fills, so a statement is never
+ * held as a whole {@code String} or {@code byte[]}. The bytes written are identical to
+ * {@code statement().getBytes(StandardCharsets.UTF_8)}, including the {@code '?'} substituted for
+ * unpaired surrogates.
+ *
+ * <p>Keep one writer per thread and reuse it for many statements; instances are not
+ * thread-safe.</p>
+ *
+ * @non_null
+ */
+public class StatementWriter implements Appendable {
+    private static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_BYTES_PER_CHAR = 4;
+    private static final int ONE_BYTE_LIMIT = 0x80;
+    private static final int TWO_BYTE_LIMIT = 0x800;
+    private static final int LEAD_TWO = 0xC0;
+    private static final int LEAD_THREE = 0xE0;
+    private static final int LEAD_FOUR = 0xF0;
+    private static final int CONTINUATION = 0x80;
+    private static final int SIX_BITS = 0x3F;
+    private static final int SHIFT_ONE = 6;
+    private static final int SHIFT_TWO = 12;
+    private static final int SHIFT_THREE = 18;
+
+    /** The writer behind the convenience {@code writeTo} methods, one per thread. */
+    private static final ThreadLocal<StatementWriter> PER_THREAD = ThreadLocal.withInitial(StatementWriter::new);
+
+    private final ByteBuffer buffer;
+    private OutputStream stream;
+    private WritableByteChannel channel;
+    private char pendingHighSurrogate;
+
+    /**
+     * Creates a writer with a 16 KiB buffer.
+     */
+    public StatementWriter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a writer with the given buffer size.
+     *
+     * @param bufferSize the buffer size in bytes, at least 4
+     * @throws IllegalArgumentException if the buffer is too small
+     */
+    public StatementWriter(int bufferSize) {
+        if (bufferSize < MAX_BYTES_PER_CHAR) {
+            throw new IllegalArgumentException("Buffer must hold at least one character: " + bufferSize);
+        }
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * Returns the calling thread's writer, creating it on first use. A thread that starts a
+     * statement while its writer is busy with another gets a new writer for it.
+     *
+     * @return a writer that is not writing anything
+     */
+    static StatementWriter forCurrentThread() {
+        final StatementWriter writer = PER_THREAD.get();
+        if (writer.stream != null || writer.channel != null) {
+            return new StatementWriter();
+        }
+        return writer;
+    }
+
+    /**
+     * Writes a printer's statement to a stream.
+     *
+     * @param printer the printer
+     * @param out     the stream; it is not flushed or closed
+     * @throws IOException if writing fails
+     */
+    public void write(StatementPrinter printer, OutputStream out) throws IOException {
+        stream = out;
+        try {
+            printer.appendTo(this);
+            finish();
+        }
+        finally {
+            reset();
+        }
+    }
+
+    /**
+     * Writes a printer's statement to a channel.
+     *
+     * @param printer the printer
+     * @param out     the channel; it is not closed
+     * @throws IOException if writing fails
+     */
+    public void write(StatementPrinter printer, WritableByteChannel out) throws IOException {
+        channel = out;
+        try {
+            printer.appendTo(this);
+            finish();
+        }
+        finally {
+            reset();
+        }
+    }
+
+    /**
+     * Writes a statement rendered by an engine to a stream.
+     *
+     * @param engine  the engine
+     * @param invoice the invoice to render
+     * @param format  the output format
+     * @param out     the stream; it is not flushed or closed
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a play ID or play type is not known
+     */
+    public void write(StatementEngine engine, Invoice invoice, StatementFormat format, OutputStream out)
+            throws IOException {
+        stream = out;
+        try {
+            engine.render(invoice, format, this);
+            finish();
+        }
+        finally {
+            reset();
+        }
+    }
+
+    /**
+     * Copies text that is already UTF-8 encoded into the output. The text must not begin with a
+     * low surrogate or end with a high surrogate, since those would pair with their neighbours.
+     *
+     * @param utf8 the encoded text
+     * @throws IOException if writing fails
+     */
+    void appendEncoded(byte[] utf8) throws IOException {
+        if (pendingHighSurrogate != 0) {
+            pendingHighSurrogate = 0;
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) '?');
+        }
+        int offset = 0;
+        while (offset < utf8.length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            final int length = Math.min(buffer.remaining(), utf8.length - offset);
+            buffer.put(utf8, offset, length);
+            offset += length;
+        }
+    }
+
+    @Override
+    public StatementWriter append(CharSequence text) throws IOException {
+        return append(text, 0, text.length());
+    }
+
+    @Override
+    public StatementWriter append(CharSequence text, int start, int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            append(text.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public StatementWriter append(char c) throws IOException {
+        if (buffer.remaining() < MAX_BYTES_PER_CHAR) {
+            drain();
+        }
+        if (pendingHighSurrogate != 0) {
+            final char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                putCodePoint(Character.toCodePoint(high, c));
+                return this;
+            }
+            buffer.put((byte) '?');
+            if (buffer.remaining() < MAX_BYTES_PER_CHAR) {
+                drain();
+            }
+        }
+        if (c < ONE_BYTE_LIMIT) {
+            buffer.put((byte) c);
+        }
+        else if (c < TWO_BYTE_LIMIT) {
+            buffer.put((byte) (LEAD_TWO | c >> SHIFT_ONE));
+            buffer.put((byte) (CONTINUATION | c & SIX_BITS));
+        }
+        else if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+        }
+        else if (Character.isLowSurrogate(c)) {
+            buffer.put((byte) '?');
+        }
+        else {
+            buffer.put((byte) (LEAD_THREE | c >> SHIFT_TWO));
+            buffer.put((byte) (CONTINUATION | c >> SHIFT_ONE & SIX_BITS));
+            buffer.put((byte) (CONTINUATION | c & SIX_BITS));
+        }
+        return this;
+    }
+
+    /**
+     * Writes any pending bytes to the current target.
+     *
+     * @throws IOException if writing fails
+     */
+    private void finish() throws IOException {
+        if (pendingHighSurrogate != 0) {
+            pendingHighSurrogate = 0;
+            buffer.put((byte) '?');
+        }
+        drain();
+    }
+
+    private void putCodePoint(int codePoint) {
+        buffer.put((byte) (LEAD_FOUR | codePoint >> SHIFT_THREE));
+        buffer.put((byte) (CONTINUATION | codePoint >> SHIFT_TWO & SIX_BITS));
+        buffer.put((byte) (CONTINUATION | codePoint >> SHIFT_ONE & SIX_BITS));
+        buffer.put((byte) (CONTINUATION | codePoint & SIX_BITS));
+    }
+
+    private void drain() throws IOException {
+        if (stream != null) {
+            stream.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+        else if (channel != null) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        else {
+            throw new IllegalStateException("No statement is being written");
+        }
+    }
+
+    private void reset() {
+        stream = null;
+        channel = null;
+        pendingHighSurrogate = 0;
+        buffer.clear();
+    }
+}
@@ -0,0 +1,80 @@
+package theater;
+
+/**
+ * Calculator that looks amounts and credits up in tables precomputed from another calculator,
+ * for audiences from zero up to a maximum. Larger (or negative) audiences fall back to the
+ * wrapped calculator's formula, so results are always identical to it.
+ *
+ * @non_null
+ */
+public final class TabulatedCalculator extends AbstractPerformanceCalculator {
+    /**
+     * The largest audience that may be tabulated; above it the tables would cost more memory
+     * than the formulas they replace are worth.
+     */
+    public static final int MAX_TABULATED_AUDIENCE = 1 << 20;
+
+    private final AbstractPerformanceCalculator formula;
+    private final int[] amounts;
+    private final int[] credits;
+
+    /**
+     * Precomputes the tables for audiences {@code 0..maxAudience}.
+     *
+     * @param formula     the calculator to tabulate
+     * @param maxAudience the largest audience to precompute
+     * @throws IllegalArgumentException if maxAudience is negative or above {@link #MAX_TABULATED_AUDIENCE}
+     */
+    public TabulatedCalculator(AbstractPerformanceCalculator formula, int maxAudience) {
+        if (maxAudience < 0 || maxAudience > MAX_TABULATED_AUDIENCE) {
+            throw new IllegalArgumentException("Maximum audience must be between 0 and "
+                    + MAX_TABULATED_AUDIENCE + ": " + maxAudience);
+        }
+        this.formula = formula;
+        this.amounts = new int[maxAudience + 1];
+        this.credits = new int[maxAudience + 1];
+        for (int audience = 0; audience <= maxAudience; audience++) {
+            amounts[audience] = formula.amountFor(audience);
+            credits[audience] = formula.volumeCredits(audience);
+        }
+    }
+
+    /**
+     * Returns the largest audience covered by the tables.
+     *
+     * @return the largest tabulated audience
+     */
+    public int getMaxAudience() {
+        return amounts.length - 1;
+    }
+
+    @Override
+    public String getType() {
+        return formula.getType();
+    }
+
+    @Override
+    public int amountFor(int audience) {
+        // one unsigned compare covers both negative and too-large audiences
+        if (Integer.compareUnsigned(audience, amounts.length) < 0) {
+            return amounts[audience];
+        }
+        return formula.amountFor(audience);
+    }
+
+    @Override
+    public int volumeCredits(int audience) {
+        if (Integer.compareUnsigned(audience, credits.length) < 0) {
+            return credits[audience];
+        }
+        return formula.volumeCredits(audience);
+    }
+
+    /**
+     * Prices in bulk with the wrapped calculator, whose bulk kernel is faster than table lookups.
+     */
+    @Override
+    public void priceAll(int[] audience, int from, int to, int[] amounts, int[] credits) {
+        formula.priceAll(audience, from, to, amounts, credits);
+    }
+}
@@ -0,0 +1,51 @@
+package theater;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Printer that renders the invoice with a compiled {@link StatementTemplate}.
+ */
+public class TemplateStatementPrinter extends StatementPrinter {
+    private final StatementTemplate template;
+
+    /**
+     * Construct a template statement printer.
+     *
+     * @param invoice  the invoice data
+     * @param plays    the plays map
+     * @param template the template to render with
+     */
+    public TemplateStatementPrinter(Invoice invoice, Map<String, Play> plays, StatementTemplate template) {
+        super(invoice, plays);
+        this.template = template;
+    }
+
+    /**
+     * Construct a template statement printer for already prepared statement data.
+     *
+     * @param statementData the prepared statement data
+     * @param template      the template to render with
+     */
+    public TemplateStatementPrinter(StatementData statementData, StatementTemplate template) {
+        super(statementData);
+        this.template = template;
+    }
+
+    /**
+     * Renders the statement data with the template.
+     *
+     * @param data the prepared statement data
+     * @param out  the destination
+     * @throws IOException if the destination fails
+     */
+    @Override
+    protected void render(StatementData data, Appendable out) throws IOException {
+        template.render(data, out);
+    }
+
+    @Override
+    protected String getRendererName() {
+        return template.getName();
+    }
+}
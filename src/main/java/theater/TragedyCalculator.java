@@ -2,22 +2,27 @@ package theater;
 
 /**
  * Calculator for tragedy performances.
- *
- * @null This class does not accept null performance or play objects.
  */
 
-public class TragedyCalculator extends AbstractPerformanceCalculator {
-    public TragedyCalculator(Performance performance, Play play) {
-        super(performance, play);
+public final class TragedyCalculator extends AbstractPerformanceCalculator {
+
+    @Override
+    public String getType() {
+        return Constants.TYPE_TRAGEDY;
     }
 
     @Override
-    public int amountFor() {
+    public int amountFor(int audience) {
         int result = Constants.TRAGEDY_BASE_AMOUNT;
-        if (getPerformance().getAudience() > Constants.TRAGEDY_AUDIENCE_THRESHOLD) {
+        if (audience > Constants.TRAGEDY_AUDIENCE_THRESHOLD) {
             result += Constants.TRAGEDY_OVER_BASE_CAPACITY_PER_PERSON
-                    * (getPerformance().getAudience() - Constants.TRAGEDY_AUDIENCE_THRESHOLD);
+                    * (audience - Constants.TRAGEDY_AUDIENCE_THRESHOLD);
         }
         return result;
     }
+
+    @Override
+    public void priceAll(int[] audience, int from, int to, int[] amounts, int[] credits) {
+        PricingFormula.TRAGEDY.priceAll(audience, from, to, amounts, credits);
+    }
 }
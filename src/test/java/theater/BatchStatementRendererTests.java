@@ -0,0 +1,63 @@
+package theater;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class BatchStatementRendererTests {
+
+    private static Map<String, Play> plays() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        plays.put("othello", new Play("Othello", "tragedy"));
+        return plays;
+    }
+
+    private static List<Invoice> invoices(int count) {
+        List<Invoice> invoices = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            List<Performance> performances = new ArrayList<>();
+            performances.add(new Performance("hamlet", 10 + i % 50));
+            performances.add(new Performance("as-like", 5 + i % 40));
+            performances.add(new Performance("othello", i % 70));
+            invoices.add(new Invoice("Customer" + i, performances));
+        }
+        return invoices;
+    }
+
+    @Test
+    public void batchMatchesSequentialOutputInOrder() {
+        Map<String, Play> plays = plays();
+        List<Invoice> invoices = invoices(1000);
+
+        for (StatementFormat format : StatementFormat.values()) {
+            List<String> result = new BatchStatementRenderer(plays, 4).render(invoices, format);
+
+            assertEquals(invoices.size(), result.size());
+            for (int i = 0; i < invoices.size(); i++) {
+                assertEquals(format.createPrinter(invoices.get(i), plays).statement(), result.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void streamRenderingKeepsInputOrderAcrossChunks() {
+        Map<String, Play> plays = plays();
+        List<Invoice> invoices = invoices(1000);
+        List<String> result = new ArrayList<>();
+
+        new BatchStatementRenderer(plays, 3, 77).render(invoices.stream(), StatementFormat.PLAIN_TEXT, result::add);
+
+        assertEquals(invoices.size(), result.size());
+        for (int i = 0; i < invoices.size(); i++) {
+            assertEquals(new StatementPrinter(invoices.get(i), plays).statement(), result.get(i));
+        }
+    }
+}
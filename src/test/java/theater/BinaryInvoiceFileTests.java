@@ -0,0 +1,125 @@
+package theater;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+
+public class BinaryInvoiceFileTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static InputStream resource(String path) {
+        return Objects.requireNonNull(BinaryInvoiceFileTests.class.getClassLoader().getResourceAsStream(path));
+    }
+
+    @Test
+    public void convertedExampleRendersTheSameStatement() throws IOException {
+        Map<String, Play> plays = InvoiceReader.readPlays(resource("plays.json"));
+        Path file = folder.newFile("invoices.bin").toPath();
+
+        assertEquals(1, BinaryInvoiceWriter.convert(resource("invoices.json"), PlayCatalog.of(plays), file));
+
+        Invoice invoice;
+        try (InvoiceReader reader = new InvoiceReader(resource("invoices.json"))) {
+            invoice = reader.next();
+        }
+        try (BinaryInvoiceFile binary = new BinaryInvoiceFile(file)) {
+            assertTrue(binary.next());
+            StatementData data = new StatementData(binary.toColumnarInvoice(CalculatorRegistry.getDefault()));
+            assertEquals(new StatementPrinter(invoice, plays).statement(), new StatementPrinter(data).statement());
+            assertFalse(binary.next());
+        }
+    }
+
+    @Test
+    public void readsRecordsAcrossMappingWindows() throws IOException {
+        Map<String, Play> plays = InvoiceReader.readPlays(resource("plays.json"));
+        PlayCatalog catalog = PlayCatalog.of(plays);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"customer\": \"Kundé ").append(i).append("\", \"performances\": [")
+                    .append("{\"playID\": \"hamlet\", \"audience\": ").append(i).append("},")
+                    .append("{\"playID\": \"othello\", \"audience\": ").append(-i).append("}]}");
+        }
+        json.append(']');
+        Path file = folder.newFile("many.bin").toPath();
+        BinaryInvoiceWriter.convert(new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8)),
+                catalog, file);
+
+        List<String> customers = new ArrayList<>();
+        try (BinaryInvoiceFile binary = new BinaryInvoiceFile(file, 256)) {
+            while (binary.next()) {
+                int i = customers.size();
+                customers.add(binary.getCustomer());
+                assertEquals(2, binary.size());
+                assertEquals(catalog.indexOf("hamlet"), binary.getPlayIndex(0));
+                assertEquals(i, binary.getAudience(0));
+                assertEquals(-i, binary.getAudience(1));
+            }
+        }
+        assertEquals(2000, customers.size());
+        assertEquals("Kundé 1999", customers.get(1999));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedFiles() throws IOException {
+        Map<String, Play> plays = InvoiceReader.readPlays(resource("plays.json"));
+        Path file = folder.newFile("truncated.bin").toPath();
+        BinaryInvoiceWriter.convert(resource("invoices.json"), PlayCatalog.of(plays), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 2));
+
+        try (BinaryInvoiceFile binary = new BinaryInvoiceFile(file)) {
+            binary.next();
+        }
+    }
+
+    @Test
+    public void rejectsNegativeCounts() throws IOException {
+        byte[] minusOne = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+
+        Path badHeader = folder.newFile("bad-header.bin").toPath();
+        Files.write(badHeader, header(minusOne));
+        assertThrows(IOException.class, () -> new BinaryInvoiceFile(badHeader).close());
+
+        Path badRecord = folder.newFile("bad-record.bin").toPath();
+        byte[] record = {1, 'A', (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        byte[] emptyCatalog = header(new byte[] {0});
+        byte[] bytes = Arrays.copyOf(emptyCatalog, emptyCatalog.length + record.length);
+        System.arraycopy(record, 0, bytes, emptyCatalog.length, record.length);
+        Files.write(badRecord, bytes);
+        try (BinaryInvoiceFile binary = new BinaryInvoiceFile(badRecord)) {
+            assertThrows(IOException.class, binary::next);
+        }
+    }
+
+    private static byte[] header(byte[] playCount) {
+        byte[] magic = BinaryInvoiceWriter.MAGIC;
+        byte[] result = Arrays.copyOf(magic, magic.length + 1 + playCount.length);
+        result[magic.length] = (byte) BinaryInvoiceWriter.FORMAT_VERSION;
+        System.arraycopy(playCount, 0, result, magic.length + 1, playCount.length);
+        return result;
+    }
+}
@@ -0,0 +1,113 @@
+package theater;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+
+public class CalculatorRegistryTests {
+
+    /**
+     * Play type discovered through META-INF/services in the test resources.
+     */
+    public static class MusicalCalculator extends AbstractPerformanceCalculator {
+        @Override
+        public String getType() {
+            return "musical";
+        }
+
+        @Override
+        public int amountFor(int audience) {
+            return 10000 + 100 * audience;
+        }
+    }
+
+    @Test
+    public void calculatorsAreSharedPerType() {
+        AbstractPerformanceCalculator first = AbstractPerformanceCalculator.createPerformanceCalculator(
+                new Performance("hamlet", 10), new Play("Hamlet", "tragedy"));
+        AbstractPerformanceCalculator second = AbstractPerformanceCalculator.createPerformanceCalculator(
+                new Performance("othello", 90), new Play("Othello", "tragedy"));
+        assertSame(first, second);
+        assertTrue(CalculatorRegistry.getDefault().getTypes().containsAll(
+                Arrays.asList("tragedy", "comedy", "history", "pastoral")));
+    }
+
+    @Test
+    public void serviceLoaderProvidedTypeIsPriced() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("cats", new Play("Cats", "musical"));
+        List<Performance> performances = new ArrayList<>();
+        performances.add(new Performance("cats", 40));
+
+        StatementData data = new StatementData(new Invoice("Fan", performances), plays);
+
+        assertEquals(14000, data.totalAmount());
+        assertEquals(10, data.volumeCredits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownTypeIsRejected() {
+        AbstractPerformanceCalculator.forType("opera");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void duplicateTypesAreRejected() {
+        CalculatorRegistry.of(Arrays.asList(new TragedyCalculator(), new TragedyCalculator()));
+    }
+
+    @Test
+    public void tabulatedPricingMatchesFormulas() {
+        CalculatorRegistry formulas = CalculatorRegistry.getDefault();
+        CalculatorRegistry tables = formulas.tabulated(100);
+        for (String type : formulas.getTypes()) {
+            for (int audience = -5; audience <= 250; audience++) {
+                assertEquals(formulas.get(type).amountFor(audience), tables.get(type).amountFor(audience));
+                assertEquals(formulas.get(type).volumeCredits(audience), tables.get(type).volumeCredits(audience));
+            }
+        }
+    }
+
+    @Test
+    public void oversizedTablesAreRejected() {
+        CalculatorRegistry formulas = CalculatorRegistry.getDefault();
+        assertThrows(IllegalArgumentException.class, () -> formulas.tabulated(Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class,
+                () -> formulas.tabulated(TabulatedCalculator.MAX_TABULATED_AUDIENCE + 1));
+        assertThrows(IllegalArgumentException.class, () -> formulas.tabulated(-1));
+    }
+
+    @Test
+    public void printerPricesWithItsOwnRegistry() {
+        CalculatorRegistry registry = CalculatorRegistry.of(Arrays.asList(new AbstractPerformanceCalculator() {
+            @Override
+            public String getType() {
+                return "tragedy";
+            }
+
+            @Override
+            public int amountFor(int audience) {
+                return 100 * audience;
+            }
+        }));
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        Performance performance = new Performance("hamlet", 40);
+        List<Performance> performances = new ArrayList<>();
+        performances.add(performance);
+
+        StatementPrinter printer = new StatementPrinter(new Invoice("Fan", performances), plays, registry);
+
+        assertEquals(4000, printer.getAmount(performance, plays.get("hamlet")));
+        assertEquals(10, printer.getVolumeCredits(performance, plays.get("hamlet")));
+    }
+}
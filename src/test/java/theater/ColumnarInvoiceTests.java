@@ -0,0 +1,42 @@
+package theater;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class ColumnarInvoiceTests {
+
+    @Test
+    public void columnarStatementMatchesObjectStatement() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        plays.put("henry-v", new Play("Henry V", "history"));
+        List<Performance> performances = new ArrayList<>();
+        performances.add(new Performance("hamlet", 55));
+        performances.add(new Performance("as-like", 35));
+        performances.add(new Performance("henry-v", 53));
+        performances.add(new Performance("hamlet", 12));
+        Invoice invoice = new Invoice("BigCo", performances);
+
+        PlayCatalog catalog = PlayCatalog.of(plays);
+        int hamlet = catalog.indexOf("hamlet");
+        ColumnarInvoice columns = ColumnarInvoice.of("BigCo", catalog,
+                new int[] {hamlet, catalog.indexOf("as-like"), catalog.indexOf("henry-v"), hamlet},
+                new int[] {55, 35, 53, 12}, 4, CalculatorRegistry.getDefault());
+        StatementData data = new StatementData(columns);
+
+        assertEquals(new StatementPrinter(invoice, plays).statement(), new StatementPrinter(data).statement());
+        assertEquals(new HTMLStatementPrinter(invoice, plays).statement(),
+                new HTMLStatementPrinter(data).statement());
+        assertEquals(4, data.getPerformances().size());
+        assertEquals("hamlet", data.getInvoice().getPerformances().get(3).getPlayID());
+        assertEquals(hamlet, columns.getPlayIndex(3));
+    }
+}
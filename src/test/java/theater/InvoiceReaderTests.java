@@ -0,0 +1,81 @@
+package theater;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+
+
+public class InvoiceReaderTests {
+
+    private static InputStream json(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream resource(String path) {
+        return Objects.requireNonNull(InvoiceReaderTests.class.getClassLoader().getResourceAsStream(path));
+    }
+
+    @Test
+    public void readsExampleStatement() throws IOException {
+        Map<String, Play> plays = InvoiceReader.readPlays(resource("plays.json"));
+        String expected = new String(resource("ExampleStatement.txt").readAllBytes(), StandardCharsets.UTF_8);
+
+        try (InvoiceReader reader = new InvoiceReader(resource("invoices.json"))) {
+            Invoice invoice = reader.next();
+            assertFalse(reader.hasNext());
+
+            String result = new StatementPrinter(invoice, plays).statement().replace("\r\n", "\n");
+            assertEquals(expected.replace("\r\n", "\n"), result);
+        }
+    }
+
+    @Test
+    public void streamsManyInvoicesAndSkipsUnknownFields() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\": {\"nested\": [1, \"x\", null]}, \"customer\": \"C\\u0041 ").append(i)
+                    .append("\", \"performances\": [{\"playID\": \"hamlet\", \"audience\": ").append(i)
+                    .append(", \"note\": true}]}");
+        }
+        json.append(']');
+
+        List<Invoice> invoices = new InvoiceReader(
+                new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8)))
+                .stream().collect(Collectors.toList());
+
+        assertEquals(5000, invoices.size());
+        assertEquals("CA 4321", invoices.get(4321).getCustomer());
+        assertEquals("hamlet", invoices.get(4321).getPerformances().get(0).getPlayID());
+        assertEquals(4321, invoices.get(4321).getPerformances().get(0).getAudience());
+    }
+
+    @Test
+    public void rejectsRecordsWithMissingFields() {
+        assertThrows(IllegalStateException.class, () -> new InvoiceReader(
+                json("[{\"customer\": \"A\", \"performances\": [{\"playID\": \"hamlet\"}]}]")).next());
+        assertThrows(IllegalStateException.class, () -> new InvoiceReader(
+                json("[{\"customer\": \"A\", \"performances\": [{\"audience\": 5}]}]")).next());
+        assertThrows(IllegalStateException.class, () -> new InvoiceReader(
+                json("[{\"performances\": []}]")).next());
+        assertThrows(IllegalStateException.class, () -> new InvoiceReader(
+                json("[{\"customer\": \"A\"}]")).next());
+        assertThrows(IllegalStateException.class, () -> InvoiceReader.readPlays(
+                json("{\"hamlet\": {\"type\": \"tragedy\"}}")));
+        assertThrows(IllegalStateException.class, () -> InvoiceReader.readPlays(
+                json("{\"hamlet\": {\"name\": \"Hamlet\"}}")));
+    }
+}
@@ -0,0 +1,65 @@
+package theater;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+
+public class LazyStatementDataTests {
+
+    private static Map<String, Play> plays() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        plays.put("ghost", new Play("The Ghost", "mystery"));
+        return plays;
+    }
+
+    private static Invoice invoice() {
+        return new Invoice("BigCo", List.of(
+                new Performance("hamlet", 55),
+                new Performance("as-like", 35)));
+    }
+
+    @Test
+    public void totalsDoNotPriceRows() {
+        long built = StatementMetrics.getDefault().getStatementDataCount();
+        StatementData lazy = StatementData.lazy(invoice(), plays());
+        StatementData eager = new StatementData(invoice(), plays());
+        assertEquals(eager.totalAmount(), lazy.totalAmount());
+        assertEquals(eager.volumeCredits(), lazy.volumeCredits());
+        assertEquals(2, lazy.size());
+        assertEquals("BigCo", lazy.getCustomer());
+        assertEquals(built + 1, StatementMetrics.getDefault().getStatementDataCount());
+    }
+
+    @Test
+    public void rowsArePricedOnFirstRead() {
+        long built = StatementMetrics.getDefault().getStatementDataCount();
+        StatementData lazy = StatementData.lazy(invoice(), plays());
+        List<PerformanceData> rows = lazy.getPerformances();
+        assertEquals(built, StatementMetrics.getDefault().getStatementDataCount());
+        assertEquals(2, rows.size());
+        assertEquals(65000, rows.get(0).amountFor());
+        assertEquals(built + 1, StatementMetrics.getDefault().getStatementDataCount());
+        assertEquals(lazy.getColumns().getTotalAmount(), lazy.totalAmount());
+    }
+
+    @Test
+    public void rendersLikeEagerData() {
+        String expected = new StatementPrinter(invoice(), plays()).statement();
+        assertEquals(expected, new StatementPrinter(StatementData.lazy(invoice(), plays())).statement());
+    }
+
+    @Test
+    public void unknownTypesFailOnFirstUse() {
+        StatementData lazy = StatementData.lazy(new Invoice("BigCo", List.of(new Performance("ghost", 5))), plays());
+        assertThrows(IllegalArgumentException.class, lazy::totalAmount);
+        assertThrows(IllegalArgumentException.class, () -> lazy.getAmount(0));
+    }
+}
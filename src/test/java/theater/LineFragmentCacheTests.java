@@ -0,0 +1,162 @@
+package theater;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+
+public class LineFragmentCacheTests {
+
+    private static Map<String, Play> plays() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        plays.put("othello", new Play("Othello – ünïcode 🎭", "tragedy"));
+        return plays;
+    }
+
+    private static Invoice invoice(String customer) {
+        return new Invoice(customer, List.of(
+                new Performance("hamlet", 55),
+                new Performance("as-like", 35),
+                new Performance("othello", 40),
+                new Performance("hamlet", 55)));
+    }
+
+    @Test
+    public void rendersTheSameTextInEveryFormat() {
+        StatementEngine plain = StatementEngine.of(plays());
+        StatementEngine cached = plain.withFragmentCache(new LineFragmentCache(64));
+        for (StatementFormat format : StatementFormat.values()) {
+            for (int i = 0; i < 3; i++) {
+                Invoice invoice = invoice("Customer " + i);
+                assertEquals(plain.render(invoice, format), cached.render(invoice, format));
+            }
+        }
+    }
+
+    @Test
+    public void writesTheSameBytes() throws Exception {
+        StatementEngine plain = StatementEngine.of(plays());
+        StatementEngine cached = plain.withFragmentCache(new LineFragmentCache(64));
+        for (StatementFormat format : StatementFormat.values()) {
+            for (int i = 0; i < 2; i++) {
+                Invoice invoice = invoice("Customer " + i);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                cached.writeTo(invoice, format, bytes);
+                assertEquals(plain.render(invoice, format), bytes.toString(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    public void splicesLinesLargerThanTheBuffer() throws Exception {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("long", new Play("é".repeat(100), "comedy"));
+        StatementEngine engine = StatementEngine.of(plays).withFragmentCache(new LineFragmentCache(4));
+        Invoice invoice = new Invoice("Big", List.of(new Performance("long", 10), new Performance("long", 10)));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new StatementWriter(16).write(engine, invoice, StatementFormat.PLAIN_TEXT, bytes);
+        assertEquals(engine.render(invoice), bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        LineFragmentCache cache = new LineFragmentCache(64);
+        StatementEngine engine = StatementEngine.of(plays()).withFragmentCache(cache);
+        engine.render(invoice("A"));
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        engine.render(invoice("B"));
+        assertEquals(5, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(5.0 / 8, cache.getHitRate(), 1e-9);
+
+        cache.clear();
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+        assertEquals(0.0, cache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void keepsFormatsApart() {
+        LineFragmentCache cache = new LineFragmentCache(64);
+        StatementEngine engine = StatementEngine.of(plays()).withFragmentCache(cache);
+        Invoice invoice = invoice("A");
+        assertEquals(StatementEngine.of(plays()).render(invoice), engine.render(invoice));
+        assertEquals(StatementEngine.of(plays()).renderHtml(invoice), engine.renderHtml(invoice));
+        assertEquals(6, cache.getMisses());
+    }
+
+    @Test
+    public void bypassesRowsThatRepeatStatementFields() {
+        LineFragmentCache cache = new LineFragmentCache(64);
+        StatementEngine engine = StatementEngine.of(plays()).withFragmentCache(cache);
+        engine.render(invoice("A"), StatementFormat.CSV);
+        assertEquals(0, cache.getHits() + cache.getMisses());
+    }
+
+    @Test
+    public void evictsWhenSlotsCollide() {
+        LineFragmentCache cache = new LineFragmentCache(1);
+        assertEquals(1, cache.getCapacity());
+        StatementEngine engine = StatementEngine.of(plays()).withFragmentCache(cache);
+        engine.render(invoice("A"));
+        assertEquals(4, cache.getMisses());
+        assertEquals(3, cache.getEvictions());
+    }
+
+    @Test
+    public void ignoresLinesPricedAtOtherRates() {
+        LineFragmentCache cache = new LineFragmentCache(64);
+        PlayCatalog catalog = PlayCatalog.of(plays());
+        Map<String, PricingFormula> formulas = new HashMap<>();
+        formulas.put("tragedy", new PricingFormula(50000, 0, 30, 0, 1000, 30, 0));
+        formulas.put("comedy", PricingFormula.COMEDY);
+        StatementEngine standard = new StatementEngine(catalog).withFragmentCache(cache);
+        StatementEngine discounted = new StatementEngine(catalog, PriceSheet.of(formulas).getRegistry())
+                .withFragmentCache(cache);
+        Invoice invoice = invoice("A");
+        standard.render(invoice);
+        assertEquals(new StatementEngine(catalog, PriceSheet.of(formulas).getRegistry()).render(invoice),
+                discounted.render(invoice));
+    }
+
+    @Test
+    public void roundsCapacityUpToAPowerOfTwo() {
+        assertEquals(64, new LineFragmentCache(33).getCapacity());
+        assertEquals(32, new LineFragmentCache(32).getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> new LineFragmentCache(0));
+    }
+
+    @Test
+    public void sharesOneCacheAcrossThreads() throws Exception {
+        LineFragmentCache cache = new LineFragmentCache(2);
+        StatementEngine engine = StatementEngine.of(plays()).withFragmentCache(cache);
+        String expected = StatementEngine.of(plays()).render(invoice("A"));
+        Thread[] threads = new Thread[8];
+        boolean[] failed = new boolean[1];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    if (!expected.equals(engine.render(invoice("A")))) {
+                        failed[0] = true;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(!failed[0]);
+    }
+}
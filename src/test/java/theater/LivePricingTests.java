@@ -0,0 +1,146 @@
+package theater;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+
+public class LivePricingTests {
+
+    private static Map<String, Play> plays() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        return plays;
+    }
+
+    private static Invoice invoice() {
+        return new Invoice("BigCo", List.of(new Performance("hamlet", 55), new Performance("as-like", 35)));
+    }
+
+    private static PriceSheet flatSheet(int amount) {
+        Map<String, PricingFormula> formulas = new HashMap<>();
+        formulas.put("tragedy", new PricingFormula(amount, 0, 0, 0, 0, 0, 0));
+        formulas.put("comedy", new PricingFormula(amount, 0, 0, 0, 0, 0, 0));
+        return PriceSheet.of(formulas);
+    }
+
+    @Test
+    public void updatesPublishNewVersions() {
+        LivePricing pricing = new LivePricing(PlayCatalog.of(plays()));
+        PricingSnapshot first = pricing.current();
+        assertEquals(1, first.getVersion());
+        assertEquals(123000, new StatementData(invoice(), first).totalAmount());
+
+        PricingSnapshot second = pricing.updatePrices(flatSheet(100));
+        assertEquals(2, second.getVersion());
+        assertSame(second, pricing.current());
+        assertSame(first.getCatalog(), second.getCatalog());
+        StatementData data = new StatementData(invoice(), pricing.current());
+        assertEquals(200, data.totalAmount());
+        assertEquals(2, data.getPricingVersion());
+        assertEquals(PricingSnapshot.UNVERSIONED, new StatementData(invoice(), plays()).getPricingVersion());
+    }
+
+    @Test
+    public void failedReloadKeepsCurrentVersion() {
+        LivePricing pricing = new LivePricing(PlayCatalog.of(plays()));
+        assertThrows(IOException.class,
+                () -> pricing.reloadPrices(Path.of("no-such-sheet.json")));
+        assertEquals(1, pricing.current().getVersion());
+    }
+
+    private static Path resource(String name) throws URISyntaxException {
+        return Path.of(LivePricingTests.class.getClassLoader().getResource(name).toURI());
+    }
+
+    @Test
+    public void rejectsPlaysThePricesDoNotCover() throws Exception {
+        LivePricing pricing = new LivePricing(PlayCatalog.of(plays()), flatSheet(100).getRegistry());
+        assertThrows(IllegalArgumentException.class, () -> pricing.reloadPlays(resource("new_plays.json")));
+        Map<String, Play> history = plays();
+        history.put("henry-v", new Play("Henry V", "history"));
+        assertThrows(IllegalArgumentException.class,
+                () -> pricing.update(PlayCatalog.of(history), flatSheet(100).getRegistry()));
+        assertEquals(1, pricing.current().getVersion());
+        assertEquals(2, pricing.current().getCatalog().size());
+    }
+
+    @Test
+    public void reloadsPlaysAndPricesAsOneVersion() throws Exception {
+        LivePricing pricing = new LivePricing(PlayCatalog.of(plays()), flatSheet(100).getRegistry());
+        PricingSnapshot snapshot = pricing.reload(resource("new_plays.json"), resource("price-sheet.json"));
+        assertEquals(2, snapshot.getVersion());
+        assertSame(snapshot, pricing.current());
+        assertEquals(0, snapshot.getCatalog().indexOf("as-like"));
+        assertEquals("pastoral", snapshot.getCatalog().getType(0));
+        assertTrue(snapshot.getRegistry().contains("pastoral"));
+
+        Map<String, Play> history = plays();
+        history.put("henry-v", new Play("Henry V", "history"));
+        PricingSnapshot updated = pricing.update(PlayCatalog.of(history), CalculatorRegistry.getDefault());
+        assertEquals(3, updated.getVersion());
+        assertEquals(3, updated.getCatalog().size());
+    }
+
+    @Test
+    public void everyStatementUsesOneConsistentVersion() throws Exception {
+        LivePricing pricing = new LivePricing(PlayCatalog.of(plays()), flatSheet(0).getRegistry());
+        Map<Long, Integer> amountByVersion = new ConcurrentHashMap<>();
+        amountByVersion.put(1L, 0);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch started = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            started.countDown();
+            for (int i = 1; i <= 2000; i++) {
+                // publish first, record after: readers may see a version before it is recorded
+                PricingSnapshot snapshot = pricing.updatePrices(flatSheet(i));
+                amountByVersion.put(snapshot.getVersion(), i);
+            }
+            running.set(false);
+        });
+        List<Thread> readers = new ArrayList<>();
+        List<long[]> seen = new ArrayList<>();
+        for (int r = 0; r < 8; r++) {
+            long[] results = new long[20_000];
+            seen.add(results);
+            readers.add(new Thread(() -> {
+                int n = 0;
+                while ((running.get() || n == 0) && n < results.length - 1) {
+                    StatementData data = new StatementData(invoice(), pricing.current());
+                    results[n++] = data.getPricingVersion();
+                    results[n++] = data.totalAmount();
+                }
+            }));
+        }
+        writer.start();
+        started.await();
+        readers.forEach(Thread::start);
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(2001, pricing.current().getVersion());
+        for (long[] results : seen) {
+            for (int i = 0; i + 1 < results.length && results[i] != 0; i += 2) {
+                int amount = amountByVersion.get(results[i]);
+                assertEquals("version " + results[i], 2L * amount, results[i + 1]);
+            }
+        }
+        assertTrue(amountByVersion.size() > 1);
+    }
+}
@@ -0,0 +1,62 @@
+package theater;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class LiveStatementDataTests {
+
+    private static Map<String, Play> plays() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        plays.put("othello", new Play("Othello", "tragedy"));
+        return plays;
+    }
+
+    private static void assertSameStatement(LiveStatementData live, List<Performance> expected) {
+        Invoice invoice = new Invoice("BigCo", expected);
+        StatementData full = new StatementData(invoice, plays());
+
+        assertEquals(full.totalAmount(), live.totalAmount());
+        assertEquals(full.volumeCredits(), live.volumeCredits());
+        assertEquals(new StatementPrinter(invoice, plays()).statement(), new StatementPrinter(live).statement());
+        assertEquals(new HTMLStatementPrinter(invoice, plays()).statement(),
+                new HTMLStatementPrinter(live).statement());
+    }
+
+    @Test
+    public void totalsFollowAppendsRemovalsAndCorrections() {
+        List<Performance> performances = new ArrayList<>();
+        performances.add(new Performance("hamlet", 55));
+        performances.add(new Performance("as-like", 35));
+        LiveStatementData live = LiveStatementData.of(new Invoice("BigCo", performances),
+                PlayCatalog.of(plays()), CalculatorRegistry.getDefault());
+        assertSameStatement(live, performances);
+
+        live.append("othello", 40);
+        performances.add(new Performance("othello", 40));
+        assertSameStatement(live, performances);
+
+        live.setAudience(1, 12);
+        performances.set(1, new Performance("as-like", 12));
+        assertSameStatement(live, performances);
+
+        live.remove(0);
+        performances.remove(0);
+        assertSameStatement(live, performances);
+
+        for (int i = 0; i < 100; i++) {
+            live.append("hamlet", i);
+            performances.add(new Performance("hamlet", i));
+        }
+        assertSameStatement(live, performances);
+        assertEquals(performances.size(), live.getPerformances().size());
+    }
+}
@@ -0,0 +1,35 @@
+package theater;
+
+import org.junit.Test;
+
+import java.text.NumberFormat;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class MoneyFormatterTests {
+
+    private static String reference(long cents) {
+        return NumberFormat.getCurrencyInstance(Locale.US).format(cents / 100.0);
+    }
+
+    @Test
+    public void matchesNumberFormatOutput() {
+        long[] samples = {0, 1, 9, 10, 99, 100, 101, 999, 1000, 99999, 100000, 100001, 173000,
+                1000000, 100000099, 123456789, Integer.MAX_VALUE, -1, -99, -173000, Integer.MIN_VALUE};
+        for (long cents : samples) {
+            assertEquals(reference(cents), MoneyFormatter.usd(cents));
+        }
+        for (long cents = -20000; cents <= 2000000; cents += 7) {
+            assertEquals(reference(cents), MoneyFormatter.usd(cents));
+        }
+    }
+
+    @Test
+    public void appendsIntoCallerBuffer() {
+        StringBuilder out = new StringBuilder("owed: ");
+        MoneyFormatter.appendUsd(out, 173000).append('!');
+        assertEquals("owed: $1,730.00!", out.toString());
+    }
+}
@@ -57,7 +57,7 @@ public class NewPlayTypeTests {
             StatementPrinter statementPrinter = new StatementPrinter(invoice, plays);
             String result = statementPrinter.statement();
 
-            assertEquals(result, expected, String.format("Actual output:%n%s%nExpected:%s", result, expected));
+            assertEquals(String.format("Actual output:%n%s%nExpected:%s", result, expected), expected, result);
         }
     }
 }
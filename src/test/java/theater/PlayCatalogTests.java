@@ -0,0 +1,68 @@
+package theater;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+public class PlayCatalogTests {
+
+    private static Map<String, Play> plays() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("othello", new Play("Othello", "tragedy"));
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        return plays;
+    }
+
+    @Test
+    public void internsPlayIDsToDenseIndices() {
+        PlayCatalog catalog = PlayCatalog.of(plays());
+
+        assertEquals(3, catalog.size());
+        assertEquals(0, catalog.indexOf("as-like"));
+        assertEquals(1, catalog.indexOf("hamlet"));
+        assertEquals(2, catalog.indexOf("othello"));
+        assertEquals(-1, catalog.indexOf("macbeth"));
+        assertEquals("Hamlet", catalog.getName(1));
+        assertEquals("tragedy", catalog.getType(2));
+
+        List<Performance> performances = new ArrayList<>();
+        performances.add(new Performance("othello", 40));
+        performances.add(new Performance("hamlet", 55));
+        performances.add(new Performance("othello", 20));
+        assertArrayEquals(new int[] {2, 1, 2}, catalog.resolve(new Invoice("BigCo", performances)));
+    }
+
+    @Test
+    public void unknownPlayIDsAreReportedUpFront() {
+        List<Performance> performances = new ArrayList<>();
+        performances.add(new Performance("macbeth", 40));
+        performances.add(new Performance("hamlet", 55));
+        performances.add(new Performance("lear", 20));
+        Invoice invoice = new Invoice("BigCo", performances);
+
+        try {
+            new StatementData(invoice, plays());
+            fail("expected unknown play IDs to be rejected");
+        }
+        catch (IllegalArgumentException exception) {
+            assertTrue(exception.getMessage(), exception.getMessage().contains("[macbeth, lear]"));
+        }
+        try {
+            new StatementData(invoice, PlayCatalog.of(plays()));
+            fail("expected unknown play IDs to be rejected");
+        }
+        catch (IllegalArgumentException exception) {
+            assertTrue(exception.getMessage(), exception.getMessage().contains("[macbeth, lear]"));
+        }
+    }
+}
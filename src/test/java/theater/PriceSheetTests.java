@@ -0,0 +1,70 @@
+package theater;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+
+public class PriceSheetTests {
+
+    private static PriceSheet parse(String json) {
+        return PriceSheet.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static PriceSheet bundledSheet() {
+        InputStream in = PriceSheetTests.class.getResourceAsStream("/price-sheet.json");
+        return PriceSheet.read(in);
+    }
+
+    @Test
+    public void sheetOfTodaysRulesPricesLikeTheBuiltInCalculators() {
+        CalculatorRegistry sheet = bundledSheet().getRegistry();
+        CalculatorRegistry builtIn = CalculatorRegistry.getDefault();
+        assertEquals(Arrays.asList("comedy", "history", "pastoral", "tragedy"),
+                Arrays.asList(bundledSheet().getTypes().toArray()));
+        for (String type : bundledSheet().getTypes()) {
+            for (int audience = -50; audience <= 500; audience++) {
+                assertEquals(type + " " + audience,
+                        builtIn.get(type).amountFor(audience), sheet.get(type).amountFor(audience));
+                assertEquals(type + " " + audience,
+                        builtIn.get(type).volumeCredits(audience), sheet.get(type).volumeCredits(audience));
+            }
+        }
+    }
+
+    @Test
+    public void statementsPricedFromSheetMatchExample() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        Invoice invoice = new Invoice("BigCo", Arrays.asList(
+                new Performance("hamlet", 55), new Performance("as-like", 35)));
+        assertEquals(new StatementPrinter(invoice, plays).statement(),
+                new StatementPrinter(invoice, plays, bundledSheet().getRegistry()).statement());
+    }
+
+    @Test
+    public void newRatesNeedNoCode() {
+        PriceSheet sheet = parse("{\"opera\": {\"baseAmount\": 50000, \"amountPerSeat\": 100, \"creditDivisor\": 4}}");
+        AbstractPerformanceCalculator opera = sheet.getRegistry().get("opera");
+        assertEquals(50000 + 100 * 40, opera.amountFor(40));
+        assertEquals(40 + 40 / 4, opera.volumeCredits(40));
+    }
+
+    @Test
+    public void malformedSheetsAreRejected() {
+        assertThrows(IllegalStateException.class, () -> parse("{\"opera\": {\"baseAmonut\": 1}}"));
+        assertThrows(IllegalStateException.class, () -> parse("{\"opera\": {\"creditDivisor\": -1}}"));
+        assertThrows(IllegalStateException.class, () -> parse("{\"opera\": {}, \"opera\": {}}"));
+        assertThrows(IllegalStateException.class, () -> parse("{\"opera\": {\"baseAmount\": \"lots\"}}"));
+        assertThrows(IllegalArgumentException.class, () -> parse("{}").getFormula("opera"));
+    }
+}
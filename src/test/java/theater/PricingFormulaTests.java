@@ -0,0 +1,88 @@
+package theater;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+
+public class PricingFormulaTests {
+
+    private static int[] audiences() {
+        int[] result = new int[10_000];
+        Random random = new Random(17);
+        for (int i = 0; i < result.length; i++) {
+            result[i] = random.nextInt(200) - 20;
+        }
+        int[] extremes = {Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -1, 0, 1, 19, 20, 21, 29, 30, 31,
+            Integer.MAX_VALUE - 1, Integer.MAX_VALUE};
+        System.arraycopy(extremes, 0, result, 0, extremes.length);
+        return result;
+    }
+
+    private static void assertMatchesScalar(AbstractPerformanceCalculator calculator, int[] audience) {
+        int[] amounts = new int[audience.length];
+        int[] credits = new int[audience.length];
+        calculator.priceAll(audience, 0, audience.length, amounts, credits);
+        for (int i = 0; i < audience.length; i++) {
+            assertEquals(calculator.getType() + " amount at " + audience[i],
+                    calculator.amountFor(audience[i]), amounts[i]);
+            assertEquals(calculator.getType() + " credits at " + audience[i],
+                    calculator.volumeCredits(audience[i]), credits[i]);
+        }
+    }
+
+    @Test
+    public void bulkPricingMatchesEveryBuiltInCalculator() {
+        int[] audience = audiences();
+        CalculatorRegistry registry = CalculatorRegistry.getDefault();
+        for (String type : Arrays.asList(Constants.TYPE_TRAGEDY, Constants.TYPE_COMEDY,
+                Constants.TYPE_HISTORY, Constants.TYPE_PASTORAL)) {
+            assertMatchesScalar(registry.get(type), audience);
+            assertMatchesScalar(new TabulatedCalculator(registry.get(type), 100), audience);
+        }
+    }
+
+    @Test
+    public void scalarFormulasMatchTheCalculators() {
+        PricingFormula[] formulas = {PricingFormula.TRAGEDY, PricingFormula.COMEDY,
+            PricingFormula.HISTORY, PricingFormula.PASTORAL};
+        AbstractPerformanceCalculator[] calculators = {new TragedyCalculator(), new ComedyCalculator(),
+            new HistoryCalculator(), new PastoralCalculator()};
+        for (int i = 0; i < formulas.length; i++) {
+            for (int audience : audiences()) {
+                assertEquals(calculators[i].amountFor(audience), formulas[i].amountFor(audience));
+                assertEquals(calculators[i].volumeCredits(audience), formulas[i].volumeCredits(audience));
+            }
+        }
+    }
+
+    @Test
+    public void defaultBulkPricingUsesPerRowMethods() {
+        assertMatchesScalar(new CalculatorRegistryTests.MusicalCalculator(), audiences());
+    }
+
+    @Test
+    public void onlyTheRangeIsWritten() {
+        int[] audience = {10, 40, 50, 60};
+        int[] amounts = new int[4];
+        int[] credits = new int[4];
+        new TragedyCalculator().priceAll(audience, 1, 3, amounts, credits);
+        assertArrayEquals(new int[] {0, 50000, 60000, 0}, amounts);
+        assertArrayEquals(new int[] {0, 10, 20, 0}, credits);
+    }
+
+    @Test
+    public void rangesOutsideTheArraysAreRejected() {
+        int[] audience = new int[4];
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> new ComedyCalculator().priceAll(audience, 0, 4, new int[3], new int[4]));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> new ComedyCalculator().priceAll(audience, 3, 2, new int[4], new int[4]));
+        assertThrows(IllegalArgumentException.class, () -> new PricingFormula(0, 0, 0, 0, 0, 0, -1));
+    }
+}
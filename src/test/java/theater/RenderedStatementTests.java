@@ -0,0 +1,144 @@
+package theater;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+
+public class RenderedStatementTests {
+    private static final String[] PLAY_IDS = {"hamlet", "as-like", "othello", "henry-v"};
+
+    private static Map<String, Play> plays() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        plays.put("othello", new Play("Othello", "tragedy"));
+        plays.put("henry-v", new Play("Henry V", "history"));
+        return plays;
+    }
+
+    private static Invoice invoice() {
+        return new Invoice("BigCo", List.of(
+                new Performance("hamlet", 55),
+                new Performance("as-like", 35),
+                new Performance("othello", 40)));
+    }
+
+    private static String fullRender(StatementTemplate template, List<Performance> performances) {
+        return template.render(new StatementData(new Invoice("BigCo", performances), plays()));
+    }
+
+    @Test
+    public void rendersLikeTheEngine() {
+        StatementEngine engine = StatementEngine.of(plays());
+        for (StatementFormat format : StatementFormat.values()) {
+            assertEquals(engine.render(invoice(), format), engine.renderCorrectable(invoice(), format).toString());
+        }
+    }
+
+    @Test
+    public void appliesCorrectionsInOrder() {
+        StatementEngine engine = StatementEngine.of(plays());
+        RenderedStatement statement = engine.renderCorrectable(invoice(), StatementFormat.PLAIN_TEXT);
+        statement.apply(new StatementChanges()
+                .setAudience(1, 20)
+                .remove(0)
+                .add("henry-v", 12)
+                .setAudience(0, 21));
+
+        List<Performance> expected = List.of(
+                new Performance("as-like", 21),
+                new Performance("othello", 40),
+                new Performance("henry-v", 12));
+        assertEquals(fullRender(StatementTemplate.PLAIN_TEXT, expected), statement.toString());
+        assertEquals(3, statement.size());
+        assertEquals(new StatementData(new Invoice("BigCo", expected), plays()).totalAmount(),
+                statement.getTotalAmount());
+    }
+
+    @Test
+    public void matchesFullRenderAfterRandomCorrections() {
+        StatementEngine engine = StatementEngine.of(plays());
+        for (StatementFormat format : StatementFormat.values()) {
+            Random random = new Random(format.ordinal());
+            RenderedStatement statement = engine.renderCorrectable(invoice(), format);
+            List<Performance> expected = new ArrayList<>(invoice().getPerformances());
+            for (int burst = 0; burst < 50; burst++) {
+                StatementChanges changes = new StatementChanges();
+                for (int i = 0; i < 20; i++) {
+                    int choice = random.nextInt(3);
+                    if (choice == 0 || expected.isEmpty()) {
+                        String playID = PLAY_IDS[random.nextInt(PLAY_IDS.length)];
+                        int audience = random.nextInt(80);
+                        changes.add(playID, audience);
+                        expected.add(new Performance(playID, audience));
+                    }
+                    else if (choice == 1) {
+                        int row = random.nextInt(expected.size());
+                        changes.remove(row);
+                        expected.remove(row);
+                    }
+                    else {
+                        int row = random.nextInt(expected.size());
+                        int audience = random.nextInt(80);
+                        changes.setAudience(row, audience);
+                        expected.set(row, new Performance(expected.get(row).getPlayID(), audience));
+                    }
+                }
+                statement.apply(changes);
+                assertEquals(fullRender(format.getTemplate(), expected), statement.toString());
+            }
+        }
+    }
+
+    @Test
+    public void reRendersRowsThatShowTotals() {
+        StatementTemplate template = StatementTemplate.compile(
+                "${customer}${n}", "${name} ${amount} of ${totalAmount} in ${rows} rows${n}", "", "",
+                StatementTemplate.Escaping.NONE);
+        LiveStatementData data = LiveStatementData.of(invoice(), PlayCatalog.of(plays()),
+                CalculatorRegistry.getDefault());
+        RenderedStatement statement = new RenderedStatement(data, template);
+        statement.apply(new StatementChanges().setAudience(0, 10).add("henry-v", 30));
+
+        List<Performance> expected = List.of(
+                new Performance("hamlet", 10),
+                new Performance("as-like", 35),
+                new Performance("othello", 40),
+                new Performance("henry-v", 30));
+        assertEquals(fullRender(template, expected), statement.toString());
+    }
+
+    @Test
+    public void staysConsistentWhenAChangeFails() {
+        StatementEngine engine = StatementEngine.of(plays());
+        RenderedStatement statement = engine.renderCorrectable(invoice(), StatementFormat.JSON);
+        StatementChanges changes = new StatementChanges().remove(0).add("unknown", 10);
+        assertThrows(IllegalArgumentException.class, () -> statement.apply(changes));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> statement.apply(new StatementChanges().setAudience(5, 10)));
+
+        List<Performance> expected = List.of(new Performance("as-like", 35), new Performance("othello", 40));
+        assertEquals(fullRender(StatementTemplate.JSON, expected), statement.toString());
+    }
+
+    @Test
+    public void reusesAChangeSet() {
+        StatementChanges changes = new StatementChanges().add("hamlet", 10).remove(0);
+        assertEquals(2, changes.size());
+        changes.clear();
+        assertEquals(0, changes.size());
+
+        RenderedStatement statement = StatementEngine.of(plays()).renderCorrectable(invoice(), StatementFormat.HTML);
+        String before = statement.toString();
+        statement.apply(changes);
+        assertEquals(before, statement.toString());
+    }
+}
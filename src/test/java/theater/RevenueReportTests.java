@@ -0,0 +1,52 @@
+package theater;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class RevenueReportTests {
+
+    @Test
+    public void aggregatesPerPlayTypeAndCustomerWithoutOverflow() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        plays.put("othello", new Play("Othello", "tragedy"));
+        plays.put("henry-v", new Play("Henry V", "history"));
+        PlayCatalog catalog = PlayCatalog.of(plays);
+
+        List<Invoice> invoices = new ArrayList<>();
+        for (int i = 0; i < 40000; i++) {
+            List<Performance> performances = new ArrayList<>();
+            performances.add(new Performance("hamlet", 55));
+            performances.add(new Performance("as-like", 35));
+            performances.add(new Performance("othello", 40));
+            invoices.add(new Invoice("Customer" + i % 3, performances));
+        }
+
+        RevenueReport report = RevenueReport.of(invoices.stream(), catalog);
+
+        // 40,000 copies of the $1,730.00 sample invoice overflow an int number of cents
+        assertEquals(40000L * 173000, report.getTotalRevenue());
+        assertEquals(40000L * 47, report.getTotalCredits());
+        assertEquals(120000, report.getPerformanceCount());
+        assertEquals(40000L * 65000, report.getPlayRevenue("hamlet"));
+        assertEquals(40000L * (65000 + 50000), report.getTypeRevenue("tragedy"));
+        assertEquals(40000L * 58000, report.getTypeRevenue("comedy"));
+        assertEquals(0, report.getTypeRevenue("history"));
+        assertEquals(13334L * 173000, report.getCustomerRevenue("Customer0"));
+        assertEquals(13333L * 47, report.getCustomerCredits("Customer2"));
+
+        List<RevenueReport.PlayTotals> top = report.topPlaysByRevenue(2);
+        assertEquals(2, top.size());
+        assertEquals("hamlet", top.get(0).getPlayID());
+        assertEquals("as-like", top.get(1).getPlayID());
+        assertEquals(3, report.topPlaysByRevenue(10).size());
+    }
+}
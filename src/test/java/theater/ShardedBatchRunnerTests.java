@@ -0,0 +1,180 @@
+package theater;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+
+public class ShardedBatchRunnerTests {
+    private static final int INVOICES = 500;
+    private static final int SHARDS = 3;
+    private static final int CHECKPOINT_INTERVAL = 25;
+    private static final String[] PLAY_IDS = {"hamlet", "as-like", "othello", "henry-v"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Map<String, Play> plays() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        plays.put("othello", new Play("Othello", "tragedy"));
+        plays.put("henry-v", new Play("Henry V", "history"));
+        return plays;
+    }
+
+    private static List<Invoice> invoices() {
+        List<Invoice> result = new ArrayList<>();
+        for (int i = 0; i < INVOICES; i++) {
+            List<Performance> performances = new ArrayList<>();
+            for (int j = 0; j <= i % 4; j++) {
+                performances.add(new Performance(PLAY_IDS[(i + j) % PLAY_IDS.length], (i * 13 + j * 7) % 70));
+            }
+            result.add(new Invoice("Customer " + i % 97, performances));
+        }
+        return result;
+    }
+
+    private Path writeInvoices(List<Invoice> invoices) throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < invoices.size(); i++) {
+            json.append(i > 0 ? "," : "").append("{\"customer\":\"").append(invoices.get(i).getCustomer())
+                    .append("\",\"performances\":[");
+            List<Performance> performances = invoices.get(i).getPerformances();
+            for (int j = 0; j < performances.size(); j++) {
+                json.append(j > 0 ? "," : "").append("{\"playID\":\"").append(performances.get(j).getPlayID())
+                        .append("\",\"audience\":").append(performances.get(j).getAudience()).append('}');
+            }
+            json.append("]}");
+        }
+        json.append(']');
+        Path file = folder.getRoot().toPath().resolve("invoices.json");
+        Files.writeString(file, json, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static String expected(List<Invoice> invoices, StatementFormat format) {
+        StatementEngine engine = StatementEngine.of(plays());
+        StringBuilder result = new StringBuilder();
+        for (Invoice invoice : invoices) {
+            result.append(engine.render(invoice, format));
+        }
+        return result.toString();
+    }
+
+    @Test
+    public void mergesShardsBackIntoInputOrder() throws IOException {
+        List<Invoice> invoices = invoices();
+        Path input = writeInvoices(invoices);
+        Path output = folder.getRoot().toPath().resolve("statements.json");
+        Path work = folder.getRoot().toPath().resolve("work");
+
+        long count = new ShardedBatchRunner(work, SHARDS, StatementFormat.NDJSON, CHECKPOINT_INTERVAL)
+                .run(PlayCatalog.of(plays()), input, output);
+
+        assertEquals(INVOICES, count);
+        assertEquals(expected(invoices, StatementFormat.NDJSON), Files.readString(output, StandardCharsets.UTF_8));
+        for (int shard = 0; shard < SHARDS; shard++) {
+            assertTrue(ShardJournal.read(work.resolve("shard-" + shard + ".journal")).isDone());
+        }
+    }
+
+    @Test
+    public void resumesFromTheLastCheckpoint() throws IOException {
+        List<Invoice> invoices = invoices();
+        Path input = writeInvoices(invoices);
+        Path output = folder.getRoot().toPath().resolve("statements.txt");
+        Path work = folder.getRoot().toPath().resolve("work");
+        ShardedBatchRunner runner = new ShardedBatchRunner(work, SHARDS, StatementFormat.PLAIN_TEXT,
+                CHECKPOINT_INTERVAL);
+        runner.run(PlayCatalog.of(plays()), input, output);
+
+        // shard 0 dies after its second checkpoint, having written part of a later statement
+        Path journal = work.resolve("shard-0.journal");
+        List<String> lines = Files.readAllLines(journal);
+        Files.writeString(journal, lines.get(0) + "\n" + lines.get(1) + "\nchecko", StandardCharsets.UTF_8);
+        Files.write(work.resolve("shard-0.out"), new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+        Files.delete(output);
+
+        assertEquals(INVOICES, runner.run(PlayCatalog.of(plays()), input, output));
+        assertEquals(expected(invoices, StatementFormat.PLAIN_TEXT), Files.readString(output, StandardCharsets.UTF_8));
+
+        List<String> resumed = Files.readAllLines(journal);
+        assertEquals(lines.get(1), resumed.get(1));
+        assertEquals(lines.subList(2, lines.size()), resumed.subList(2, resumed.size()));
+        String log = Files.readString(work.resolve("shard-0.log"));
+        assertTrue(log.contains("Resuming from invoice " + 2 * CHECKPOINT_INTERVAL));
+        assertFalse(Files.readString(work.resolve("shard-1.log")).contains("Resuming"));
+    }
+
+    @Test
+    public void rejectsAWorkDirectoryWithAnotherShardCount() throws IOException {
+        Path input = writeInvoices(invoices().subList(0, 10));
+        Path output = folder.getRoot().toPath().resolve("statements.txt");
+        Path work = folder.getRoot().toPath().resolve("work");
+        new ShardedBatchRunner(work, 2, StatementFormat.PLAIN_TEXT).run(PlayCatalog.of(plays()), input, output);
+
+        assertThrows(IllegalStateException.class, () -> new ShardedBatchRunner(work, SHARDS, StatementFormat.PLAIN_TEXT)
+                .run(PlayCatalog.of(plays()), input, output));
+    }
+
+    @Test
+    public void rejectsAWorkDirectoryOfAnotherRun() throws IOException {
+        Path input = writeInvoices(invoices().subList(0, 10));
+        Path output = folder.getRoot().toPath().resolve("statements.txt");
+        Path work = folder.getRoot().toPath().resolve("work");
+        PlayCatalog catalog = PlayCatalog.of(plays());
+        new ShardedBatchRunner(work, SHARDS, StatementFormat.PLAIN_TEXT).run(catalog, input, output);
+
+        assertThrows(IllegalStateException.class,
+                () -> new ShardedBatchRunner(work, SHARDS, StatementFormat.HTML).run(catalog, input, output));
+
+        Map<String, Play> renamed = plays();
+        renamed.put("hamlet", new Play("Hamlet, Prince of Denmark", "tragedy"));
+        assertThrows(IllegalStateException.class, () -> new ShardedBatchRunner(work, SHARDS,
+                StatementFormat.PLAIN_TEXT).run(PlayCatalog.of(renamed), input, output));
+
+        Path copy = folder.getRoot().toPath().resolve("copy.json");
+        Files.copy(input, copy);
+        assertThrows(IllegalStateException.class,
+                () -> new ShardedBatchRunner(work, SHARDS, StatementFormat.PLAIN_TEXT).run(catalog, copy, output));
+
+        writeInvoices(invoices().subList(0, 20));
+        assertThrows(IllegalStateException.class,
+                () -> new ShardedBatchRunner(work, SHARDS, StatementFormat.PLAIN_TEXT).run(catalog, input, output));
+    }
+
+    @Test
+    public void ignoresATornJournalLine() throws IOException {
+        Path journal = folder.newFile("torn.journal").toPath();
+        ShardJournal.commit(journal, new ShardJournal.Checkpoint(10, 400, false));
+        Files.writeString(journal, "done 20 8", StandardOpenOption.APPEND);
+        ShardJournal.Checkpoint checkpoint = ShardJournal.read(journal);
+        assertEquals(10, checkpoint.getInvoices());
+        assertEquals(400, checkpoint.getBytes());
+        assertFalse(checkpoint.isDone());
+    }
+
+    @Test
+    public void assignsACustomerToOneShard() {
+        assertEquals(ShardedBatchRunner.shardOf("BigCo", SHARDS), ShardedBatchRunner.shardOf("BigCo", SHARDS));
+        assertTrue(ShardedBatchRunner.shardOf("Customer -1", SHARDS) >= 0);
+        assertThrows(IllegalArgumentException.class, () -> new ShardedBatchRunner(Path.of("."), 0,
+                StatementFormat.PLAIN_TEXT));
+    }
+}
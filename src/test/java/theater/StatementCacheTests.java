@@ -0,0 +1,106 @@
+package theater;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class StatementCacheTests {
+
+    private static Map<String, Play> plays(String hamletName) {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play(hamletName, "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        return plays;
+    }
+
+    private static Invoice invoice(String customer, int audience) {
+        List<Performance> performances = new ArrayList<>();
+        performances.add(new Performance("hamlet", audience));
+        performances.add(new Performance("as-like", 35));
+        return new Invoice(customer, performances);
+    }
+
+    @Test
+    public void hitsMissesAndEvictionsAreCounted() {
+        StatementCache cache = new StatementCache(2);
+        PlayCatalog catalog = PlayCatalog.of(plays("Hamlet"));
+
+        String first = cache.statement(invoice("A", 55), catalog, StatementFormat.PLAIN_TEXT);
+        assertEquals(new StatementPrinter(invoice("A", 55), plays("Hamlet")).statement(), first);
+        assertEquals(first, cache.statement(invoice("A", 55), catalog, StatementFormat.PLAIN_TEXT));
+        cache.statement(invoice("A", 55), catalog, StatementFormat.HTML);
+        cache.statement(invoice("B", 55), catalog, StatementFormat.PLAIN_TEXT);
+
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void cachesInvoicesWithoutACustomer() {
+        StatementCache cache = new StatementCache(2);
+        PlayCatalog catalog = PlayCatalog.of(plays("Hamlet"));
+
+        String first = cache.statement(invoice(null, 55), catalog, StatementFormat.PLAIN_TEXT);
+        assertEquals(first, cache.statement(invoice(null, 55), catalog, StatementFormat.PLAIN_TEXT));
+        assertNotEquals(first, cache.statement(invoice("A", 55), catalog, StatementFormat.PLAIN_TEXT));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void changedPlayNameIsNotServedFromCache() {
+        StatementCache cache = new StatementCache(10);
+
+        String before = cache.statement(invoice("A", 55), plays("Hamlet"), StatementFormat.PLAIN_TEXT);
+        String after = cache.statement(invoice("A", 55), plays("Hamlet, Prince of Denmark"),
+                StatementFormat.PLAIN_TEXT);
+        assertNotEquals(before, after);
+        assertTrue(after.contains("Prince of Denmark"));
+
+        String catalogBefore = cache.statement(invoice("A", 55), PlayCatalog.of(plays("Hamlet")),
+                StatementFormat.PLAIN_TEXT);
+        String catalogAfter = cache.statement(invoice("A", 55), PlayCatalog.of(plays("Amleto")),
+                StatementFormat.PLAIN_TEXT);
+        assertNotEquals(catalogBefore, catalogAfter);
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void concurrentAccessReturnsCorrectStatements() throws Exception {
+        StatementCache cache = new StatementCache(16);
+        PlayCatalog catalog = PlayCatalog.of(plays("Hamlet"));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        Invoice invoice = invoice("C" + i % 32, i % 32);
+                        assertEquals(new StatementPrinter(invoice, plays("Hamlet")).statement(),
+                                cache.statement(invoice, catalog, StatementFormat.PLAIN_TEXT));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertEquals(16000, cache.getHits() + cache.getMisses());
+        assertTrue(cache.size() <= 16);
+    }
+}
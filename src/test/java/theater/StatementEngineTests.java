@@ -0,0 +1,111 @@
+package theater;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+
+public class StatementEngineTests {
+    private static final int THREADS = 300;
+    private static final int STATEMENTS_PER_THREAD = 200;
+
+    private static Map<String, Play> plays() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        plays.put("othello", new Play("Othello", "tragedy"));
+        plays.put("henry-v", new Play("Henry V", "history"));
+        plays.put("winters-tale", new Play("The Winter's Tale", "pastoral"));
+        return plays;
+    }
+
+    private static Invoice invoice(int seed) {
+        String[] ids = {"hamlet", "as-like", "othello", "henry-v", "winters-tale"};
+        List<Performance> performances = new ArrayList<>();
+        for (int i = 0; i <= seed % 7; i++) {
+            performances.add(new Performance(ids[(seed + i) % ids.length], (seed * 31 + i * 7) % 90));
+        }
+        return new Invoice("Customer " + seed, performances);
+    }
+
+    @Test
+    public void rendersLikeThePrinters() {
+        Map<String, Play> plays = plays();
+        StatementEngine engine = StatementEngine.of(plays);
+        Invoice invoice = invoice(12);
+        assertEquals(new StatementPrinter(invoice, plays).statement(), engine.render(invoice));
+        assertEquals(new HTMLStatementPrinter(invoice, plays).statement(), engine.renderHtml(invoice));
+        for (StatementFormat format : StatementFormat.values()) {
+            assertEquals(format.createPrinter(invoice, plays).statement(), engine.render(invoice, format));
+        }
+    }
+
+    @Test
+    public void recordsTheSnapshotVersion() {
+        LivePricing pricing = new LivePricing(PlayCatalog.of(plays()));
+        pricing.updateCatalog(PlayCatalog.of(plays()));
+        StatementEngine engine = new StatementEngine(pricing.current());
+        assertEquals(2, engine.prepare(invoice(3)).getPricingVersion());
+        assertEquals(PricingSnapshot.UNVERSIONED,
+                StatementEngine.of(plays()).prepare(invoice(3)).getPricingVersion());
+    }
+
+    @Test
+    public void rejectsUnknownPlays() {
+        StatementEngine engine = StatementEngine.of(plays());
+        Invoice invoice = new Invoice("BigCo", List.of(new Performance("macbeth", 10)));
+        assertThrows(IllegalArgumentException.class, () -> engine.render(invoice));
+    }
+
+    @Test
+    public void oneEngineIsSafeToShareAcrossHundredsOfThreads() throws Exception {
+        Map<String, Play> plays = plays();
+        StatementEngine engine = StatementEngine.of(plays);
+        StatementFormat[] formats = StatementFormat.values();
+        int distinct = 97;
+        String[][] expected = new String[distinct][formats.length];
+        for (int seed = 0; seed < distinct; seed++) {
+            for (int f = 0; f < formats.length; f++) {
+                expected[seed][f] = formats[f].createPrinter(invoice(seed), plays).statement();
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            results.add(pool.submit(() -> {
+                start.await();
+                int checked = 0;
+                for (int i = 0; i < STATEMENTS_PER_THREAD; i++) {
+                    int seed = (thread * STATEMENTS_PER_THREAD + i) % distinct;
+                    int format = (thread + i) % formats.length;
+                    assertEquals(expected[seed][format], engine.render(invoice(seed), formats[format]));
+                    checked++;
+                }
+                return checked;
+            }));
+        }
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(THREADS * STATEMENTS_PER_THREAD, total);
+    }
+}
@@ -0,0 +1,135 @@
+package theater;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+
+public class StatementMetricsTests {
+
+    private static Map<String, Play> plays() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        plays.put("ghost", new Play("The Ghost", "mystery"));
+        return plays;
+    }
+
+    private static Invoice invoice() {
+        return new Invoice("BigCo", List.of(
+                new Performance("hamlet", 55),
+                new Performance("as-like", 35),
+                new Performance("hamlet", 40)));
+    }
+
+    private static long rendered(StatementMetrics.Snapshot snapshot, String renderer) {
+        LatencyHistogram.Snapshot histogram = snapshot.getRenderers().get(renderer);
+        if (histogram == null) {
+            return 0;
+        }
+        return histogram.getCount();
+    }
+
+    @Test
+    public void countsPricedPerformancesByTypeAndStatementData() {
+        StatementMetrics.Snapshot before = StatementMetrics.getDefault().snapshot();
+        new StatementData(invoice(), plays());
+        StatementMetrics.Snapshot after = StatementMetrics.getDefault().snapshot();
+        assertEquals(2, after.getPerformancesPriced("tragedy") - before.getPerformancesPriced("tragedy"));
+        assertEquals(1, after.getPerformancesPriced("comedy") - before.getPerformancesPriced("comedy"));
+        assertEquals(1, after.getStatementData().getCount() - before.getStatementData().getCount());
+    }
+
+    @Test
+    public void countsWithoutScanningTheCatalog() {
+        Map<String, Play> plays = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            plays.put("play-" + i, new Play("Play " + i, i % 2 == 0 ? "tragedy" : "comedy"));
+        }
+        PlayCatalog catalog = PlayCatalog.of(plays);
+        Invoice invoice = new Invoice("BigCo", List.of(
+                new Performance("play-2", 55),
+                new Performance("play-4", 35),
+                new Performance("play-7", 40)));
+        ColumnarInvoice.of(invoice, catalog, CalculatorRegistry.getDefault());
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        StatementMetrics.Snapshot before = StatementMetrics.getDefault().snapshot();
+        long allocatedBefore = threads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+        ColumnarInvoice.of(invoice, catalog, CalculatorRegistry.getDefault());
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().threadId()) - allocatedBefore;
+        StatementMetrics.Snapshot after = StatementMetrics.getDefault().snapshot();
+
+        assertEquals(2, after.getPerformancesPriced("tragedy") - before.getPerformancesPriced("tragedy"));
+        assertEquals(1, after.getPerformancesPriced("comedy") - before.getPerformancesPriced("comedy"));
+        assertTrue("allocated " + allocated + " bytes", allocated < 10_000);
+    }
+
+    @Test
+    public void countsUnknownPlayTypeFailures() {
+        long before = StatementMetrics.getDefault().getUnknownPlayTypeFailures();
+        Invoice invoice = new Invoice("BigCo", List.of(new Performance("ghost", 10)));
+        assertThrows(IllegalArgumentException.class, () -> new StatementData(invoice, plays()));
+        assertThrows(IllegalArgumentException.class,
+                () -> AbstractPerformanceCalculator.createPerformanceCalculator(
+                        new Performance("ghost", 10), new Play("The Ghost", "mystery")));
+        assertEquals(2, StatementMetrics.getDefault().getUnknownPlayTypeFailures() - before);
+    }
+
+    @Test
+    public void timesEachRenderer() {
+        StatementMetrics.Snapshot before = StatementMetrics.getDefault().snapshot();
+        StatementData data = new StatementData(invoice(), plays());
+        for (StatementFormat format : StatementFormat.values()) {
+            format.createPrinter(data).statement();
+        }
+        StatementMetrics.Snapshot after = StatementMetrics.getDefault().snapshot();
+        for (StatementFormat format : StatementFormat.values()) {
+            assertEquals(format.getName(), 1, rendered(after, format.getName()) - rendered(before, format.getName()));
+        }
+    }
+
+    @Test
+    public void exposesMetricsOverJmx() throws Exception {
+        ObjectName name = StatementMetrics.registerPlatformMBean();
+        assertEquals(name, StatementMetrics.registerPlatformMBean());
+        new StatementPrinter(invoice(), plays()).statement();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertTrue((Long) server.getAttribute(name, "StatementDataCount") > 0);
+        TabularData priced = (TabularData) server.getAttribute(name, "PerformancesPricedByType");
+        assertTrue(priced.containsKey(new Object[] {"tragedy"}));
+        TabularData renders = (TabularData) server.getAttribute(name, "RenderCounts");
+        assertTrue(renders.containsKey(new Object[] {"plain"}));
+    }
+
+    @Test
+    public void histogramReportsBucketBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(5000);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(5000, snapshot.getMaxNanos());
+        assertEquals((99 * 100 + 5000) / 100, snapshot.getMeanNanos());
+        assertEquals(127, snapshot.getPercentileNanos(50));
+        assertEquals(127, snapshot.getPercentileNanos(99));
+        assertEquals(5000, snapshot.getPercentileNanos(100));
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getPercentileNanos(99));
+    }
+}
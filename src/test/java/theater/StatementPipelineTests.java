@@ -0,0 +1,195 @@
+package theater;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+
+public class StatementPipelineTests {
+    private static final int INVOICES = 2000;
+    private static final String[] PLAY_IDS = {"hamlet", "as-like", "othello", "henry-v"};
+
+    private static Map<String, Play> plays() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        plays.put("othello", new Play("Othello", "tragedy"));
+        plays.put("henry-v", new Play("Henry V", "history"));
+        return plays;
+    }
+
+    private static List<Invoice> invoices() {
+        List<Invoice> result = new ArrayList<>();
+        for (int i = 0; i < INVOICES; i++) {
+            List<Performance> performances = new ArrayList<>();
+            for (int j = 0; j <= i % 5; j++) {
+                performances.add(new Performance(PLAY_IDS[(i + j) % PLAY_IDS.length], (i * 17 + j * 3) % 75));
+            }
+            result.add(new Invoice("Customer " + i, performances));
+        }
+        return result;
+    }
+
+    private static String expected(List<Invoice> invoices, StatementFormat format) {
+        StatementEngine engine = StatementEngine.of(plays());
+        StringBuilder result = new StringBuilder();
+        for (Invoice invoice : invoices) {
+            result.append(engine.render(invoice, format));
+        }
+        return result.toString();
+    }
+
+    @Test(timeout = 30_000)
+    public void writesStatementsInInputOrder() throws IOException {
+        List<Invoice> invoices = invoices();
+        int[][] configurations = {{1, 1, 1}, {4, 3, 2}, {64, 2, 4}};
+        for (int[] configuration : configurations) {
+            StatementPipeline pipeline = new StatementPipeline(StatementEngine.of(plays()), StatementFormat.HTML,
+                    configuration[0], configuration[1], configuration[2]);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertEquals(INVOICES, pipeline.run(invoices.iterator(), out));
+            assertEquals(expected(invoices, StatementFormat.HTML), out.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test(timeout = 30_000)
+    public void runsAgainWithTheSameJobs() throws IOException {
+        List<Invoice> invoices = invoices().subList(0, 100);
+        StatementPipeline pipeline = new StatementPipeline(StatementEngine.of(plays()), StatementFormat.CSV, 8, 2, 2);
+        for (int run = 0; run < 3; run++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            pipeline.run(invoices.iterator(), out);
+            assertEquals(expected(invoices, StatementFormat.CSV), out.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test(timeout = 30_000)
+    public void holdsBackTheParserWhenTheWriterFallsBehind() throws IOException {
+        int capacity = 8;
+        StatementPipeline pipeline = new StatementPipeline(StatementEngine.of(plays()), StatementFormat.PLAIN_TEXT,
+                capacity, 2, 2);
+        Iterator<Invoice> invoices = invoices().iterator();
+        long[] maxInFlight = new long[1];
+        Iterator<Invoice> source = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return invoices.hasNext();
+            }
+
+            @Override
+            public Invoice next() {
+                List<StatementPipeline.StageStatistics> statistics = pipeline.statistics();
+                long inFlight = statistics.get(0).getProcessed() - statistics.get(3).getProcessed();
+                maxInFlight[0] = Math.max(maxInFlight[0], inFlight);
+                return invoices.next();
+            }
+        };
+        ByteArrayOutputStream slow = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] bytes, int offset, int length) {
+                try {
+                    Thread.sleep(1);
+                }
+                catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                super.write(bytes, offset, length);
+            }
+        };
+
+        assertEquals(INVOICES, pipeline.run(source, slow));
+        assertTrue("in flight: " + maxInFlight[0], maxInFlight[0] <= capacity);
+    }
+
+    @Test(timeout = 30_000)
+    public void reportsEveryStage() throws IOException {
+        StatementPipeline pipeline = new StatementPipeline(StatementEngine.of(plays()), StatementFormat.JSON,
+                16, 3, 2);
+        assertEquals(0.0, pipeline.statistics().get(0).getThroughput(), 0.0);
+        pipeline.run(invoices().iterator(), new ByteArrayOutputStream());
+
+        List<StatementPipeline.StageStatistics> statistics = pipeline.statistics();
+        assertEquals(List.of("parse", "price", "render", "write"),
+                statistics.stream().map(StatementPipeline.StageStatistics::getName).toList());
+        assertEquals(List.of(1, 3, 2, 1),
+                statistics.stream().map(StatementPipeline.StageStatistics::getThreads).toList());
+        for (StatementPipeline.StageStatistics stage : statistics) {
+            assertEquals(stage.toString(), INVOICES, stage.getProcessed());
+            assertEquals(0, stage.getQueueDepth());
+            assertTrue(stage.getThroughput() > 0);
+            assertTrue(stage.getUtilization() >= 0 && stage.getUtilization() <= 1);
+        }
+    }
+
+    @Test(timeout = 30_000)
+    public void stopsEveryStageWhenOneFails() {
+        List<Invoice> invoices = new ArrayList<>(invoices());
+        invoices.set(INVOICES / 2, new Invoice("Bad", List.of(new Performance("unknown", 10))));
+        StatementPipeline pipeline = new StatementPipeline(StatementEngine.of(plays()), StatementFormat.PLAIN_TEXT,
+                8, 2, 2);
+        assertThrows(IllegalArgumentException.class, () -> pipeline.run(invoices.iterator(),
+                new ByteArrayOutputStream()));
+    }
+
+    @Test(timeout = 30_000)
+    public void stopsEveryStageWhenTheCallerIsInterrupted() throws Exception {
+        StatementPipeline pipeline = new StatementPipeline(StatementEngine.of(plays()), StatementFormat.PLAIN_TEXT,
+                8, 2, 2);
+        ByteArrayOutputStream slow = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] bytes, int offset, int length) {
+                try {
+                    Thread.sleep(5);
+                }
+                catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                super.write(bytes, offset, length);
+            }
+        };
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                pipeline.run(invoices().iterator(), slow);
+            }
+            catch (IOException | RuntimeException exception) {
+                thrown.set(exception);
+            }
+        });
+        caller.start();
+        while (pipeline.statistics().get(0).getProcessed() == 0) {
+            Thread.sleep(1);
+        }
+        caller.interrupt();
+        caller.join();
+
+        assertTrue(String.valueOf(thrown.get()), thrown.get() instanceof IllegalStateException);
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(thread -> thread.getName().startsWith("pipeline-")));
+        List<Invoice> invoices = invoices().subList(0, 10);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(10, pipeline.run(invoices.iterator(), out));
+        assertEquals(expected(invoices, StatementFormat.PLAIN_TEXT), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void rejectsEmptyStages() {
+        StatementEngine engine = StatementEngine.of(plays());
+        assertThrows(IllegalArgumentException.class,
+                () -> new StatementPipeline(engine, StatementFormat.PLAIN_TEXT, 0, 1, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new StatementPipeline(engine, StatementFormat.PLAIN_TEXT, 8, 0, 1));
+    }
+}
@@ -0,0 +1,132 @@
+package theater;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class StatementServerTests {
+
+    private static final String INVOICE = "{\"customer\": \"BigCo\", \"performances\": ["
+            + "{\"playID\": \"hamlet\", \"audience\": 55},"
+            + "{\"playID\": \"as-like\", \"audience\": 35},"
+            + "{\"playID\": \"othello\", \"audience\": 40}]}";
+
+    private StatementServer server;
+    private HttpClient client;
+
+    private static String loadString(String path) throws IOException {
+        try (InputStream in = Objects.requireNonNull(
+                StatementServerTests.class.getClassLoader().getResourceAsStream(path))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        PlayCatalog catalog;
+        try (InputStream in = StatementServerTests.class.getClassLoader().getResourceAsStream("plays.json")) {
+            catalog = PlayCatalog.of(InvoiceReader.readPlays(in));
+        }
+        server = new StatementServer(catalog, 16);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = HttpClient.newHttpClient();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpRequest post(String query, String body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/statement" + query))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    @Test
+    public void rendersPlainTextAndHtml() throws Exception {
+        HttpResponse<String> plain = client.send(post("", INVOICE), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, plain.statusCode());
+        assertEquals(loadString("ExampleStatement.txt").replace("\r\n", "\n"), plain.body().replace("\r\n", "\n"));
+        assertTrue(plain.headers().firstValue("Server-Timing").isPresent());
+
+        HttpResponse<String> html = client.send(post("?format=html", INVOICE), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, html.statusCode());
+        assertEquals(loadString("HTMLStatementExample.html"), html.body());
+    }
+
+    @Test
+    public void pricesWithReloadedPricesAndReportsVersion() throws Exception {
+        HttpResponse<String> before = client.send(post("", INVOICE), HttpResponse.BodyHandlers.ofString());
+        assertEquals("1", before.headers().firstValue("Pricing-Version").orElse(""));
+
+        Map<String, PricingFormula> doubled = new HashMap<>();
+        doubled.put("tragedy", new PricingFormula(80000, 0, 30, 0, 2000, 30, 0));
+        doubled.put("comedy", new PricingFormula(60000, 600, 20, 20000, 1000, 30, 5));
+        server.getPricing().updatePrices(PriceSheet.of(doubled));
+
+        HttpResponse<String> after = client.send(post("", INVOICE), HttpResponse.BodyHandlers.ofString());
+        assertEquals("2", after.headers().firstValue("Pricing-Version").orElse(""));
+        assertTrue(after.body().contains("Amount owed is $3,460.00"));
+    }
+
+    @Test
+    public void rejectsBadRequests() throws Exception {
+        String unknownPlay = INVOICE.replace("othello", "macbeth");
+        HttpResponse<String> response = client.send(post("", unknownPlay), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("macbeth"));
+
+        assertEquals(400, client.send(post("?format=pdf", INVOICE), HttpResponse.BodyHandlers.ofString())
+                .statusCode());
+        assertEquals(400, client.send(post("", "{\"customer\": "), HttpResponse.BodyHandlers.ofString())
+                .statusCode());
+        assertEquals(3, server.getFailedCount());
+    }
+
+    @Test
+    public void escapesRequestTextInHtml() throws Exception {
+        String hostile = INVOICE.replace("BigCo", "<script>alert('x')</script> & \\\"Co\\\"");
+        HttpResponse<String> html = client.send(post("?format=html", hostile), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, html.statusCode());
+        assertFalse(html.body().contains("<script>"));
+        assertTrue(html.body().contains("<h1>Statement for &lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt; &amp; "
+                + "&quot;Co&quot;</h1>"));
+    }
+
+    @Test
+    public void servesManyConcurrentRequests() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            responses.add(client.sendAsync(post("", INVOICE), HttpResponse.BodyHandlers.ofString()));
+        }
+        String expected = loadString("ExampleStatement.txt").replace("\r\n", "\n");
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.get().statusCode());
+            assertEquals(expected, response.get().body().replace("\r\n", "\n"));
+        }
+        assertEquals(500, server.getRequestCount());
+        assertTrue(server.getMaxLatencyNanos() >= server.getMeanLatencyNanos());
+    }
+}
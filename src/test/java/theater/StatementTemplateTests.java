@@ -0,0 +1,89 @@
+package theater;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+
+public class StatementTemplateTests {
+
+    private static StatementData data() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("tricky", new Play("Say \"hi\", then\nleave\\go", "comedy"));
+        Invoice invoice = new Invoice("Big, \"Co\"", List.of(
+                new Performance("hamlet", 55),
+                new Performance("tricky", 35)));
+        return new StatementData(invoice, plays);
+    }
+
+    @Test
+    public void csvQuotesFieldsThatNeedIt() {
+        String expected = "customer,playID,play,type,audience,amount,credits\n"
+                + "\"Big, \"\"Co\"\"\",hamlet,Hamlet,tragedy,55,65000,25\n"
+                + "\"Big, \"\"Co\"\"\",tricky,\"Say \"\"hi\"\", then\nleave\\go\",comedy,35,58000,12\n";
+        assertEquals(expected, StatementFormat.CSV.createPrinter(data()).statement());
+    }
+
+    @Test
+    public void jsonAndNdjsonAreValidAndAgree() {
+        StatementData data = data();
+        for (StatementFormat format : List.of(StatementFormat.JSON, StatementFormat.NDJSON)) {
+            JSONObject json = new JSONObject(format.createPrinter(data).statement());
+            assertEquals("Big, \"Co\"", json.getString("customer"));
+            assertEquals(123000, json.getInt("totalAmount"));
+            assertEquals(37, json.getInt("volumeCredits"));
+            JSONArray rows = json.getJSONArray("performances");
+            assertEquals(2, rows.length());
+            assertEquals("Say \"hi\", then\nleave\\go", rows.getJSONObject(1).getString("play"));
+            assertEquals(58000, rows.getJSONObject(1).getInt("amount"));
+        }
+    }
+
+    @Test
+    public void ndjsonIsOneLinePerStatement() {
+        String statement = StatementFormat.NDJSON.createPrinter(data()).statement();
+        assertEquals(statement.length() - 1, statement.indexOf('\n'));
+    }
+
+    @Test
+    public void emptyInvoiceRendersEmptyArray() {
+        StatementData empty = new StatementData(new Invoice("Nobody", List.of()), new HashMap<>());
+        JSONObject json = new JSONObject(StatementFormat.JSON.createPrinter(empty).statement());
+        assertEquals(0, json.getJSONArray("performances").length());
+    }
+
+    @Test
+    public void customTemplateRendersFieldsAndEscapes() {
+        StatementTemplate template = StatementTemplate.compile("${customer} ($$${rows}):", " ${playID}=${amount}",
+                ";", " total ${totalAmount}", StatementTemplate.Escaping.NONE);
+        assertEquals("Big, \"Co\" ($2): hamlet=$650.00; tricky=$580.00 total $1,230.00", template.render(data()));
+    }
+
+    @Test
+    public void formatsAreFoundByName() {
+        for (StatementFormat format : StatementFormat.values()) {
+            assertEquals(format, StatementFormat.forName(format.getName()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> StatementFormat.forName("xml"));
+    }
+
+    @Test
+    public void badTemplatesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> StatementTemplate.compile(
+                "${nope}", "", "", "", StatementTemplate.Escaping.NONE));
+        assertThrows(IllegalArgumentException.class, () -> StatementTemplate.compile(
+                "${name}", "", "", "", StatementTemplate.Escaping.NONE));
+        assertThrows(IllegalArgumentException.class, () -> StatementTemplate.compile(
+                "", "${name", "", "", StatementTemplate.Escaping.NONE));
+        assertThrows(IllegalArgumentException.class, () -> StatementTemplate.compile(
+                "", "$x", "", "", StatementTemplate.Escaping.NONE));
+    }
+}
@@ -0,0 +1,80 @@
+package theater;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+
+public class StatementTotalsTests {
+
+    private static Map<String, Play> plays() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("As You Like It", "comedy"));
+        plays.put("henry-v", new Play("Henry V", "history"));
+        return plays;
+    }
+
+    private static Invoice invoice(int rows) {
+        String[] ids = {"hamlet", "as-like", "henry-v"};
+        List<Performance> performances = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            performances.add(new Performance(ids[i % ids.length], 10 + i % 60));
+        }
+        return new Invoice("BigCo", performances);
+    }
+
+    @Test
+    public void totalsMatchStatementData() {
+        Invoice invoice = invoice(50);
+        StatementData data = new StatementData(invoice, plays());
+        StatementTotals totals = StatementTotals.of(invoice, plays());
+        assertEquals(data.totalAmount(), totals.getTotalAmount());
+        assertEquals(data.volumeCredits(), totals.getVolumeCredits());
+        assertEquals(50, totals.getPerformanceCount());
+    }
+
+    @Test
+    public void reusedAccumulatorReplacesTotals() {
+        StatementTotals totals = new StatementTotals(PlayCatalog.of(plays()));
+        totals.accumulate(invoice(50));
+        Invoice small = invoice(2);
+        totals.accumulate(small);
+        assertEquals(new StatementData(small, plays()).totalAmount(), totals.getTotalAmount());
+        assertEquals(2, totals.getPerformanceCount());
+    }
+
+    @Test
+    public void unknownPlaysAreReported() {
+        StatementTotals totals = new StatementTotals(PlayCatalog.of(plays()));
+        Invoice unknown = new Invoice("BigCo", List.of(new Performance("othello", 10)));
+        assertThrows(IllegalArgumentException.class, () -> totals.accumulate(unknown));
+        assertEquals(0, totals.getTotalAmount());
+    }
+
+    @Test
+    public void reusedAccumulatorDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        StatementTotals totals = new StatementTotals(PlayCatalog.of(plays()));
+        Invoice invoice = invoice(100);
+        long checksum = 0;
+        for (int i = 0; i < 20_000; i++) {
+            checksum += totals.accumulate(invoice).getTotalAmount();
+        }
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+        for (int i = 0; i < 20_000; i++) {
+            checksum += totals.accumulate(invoice).getTotalAmount();
+        }
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().threadId()) - before;
+        assertTrue(checksum > 0);
+        assertTrue("allocated " + allocated + " bytes", allocated < 20_000);
+    }
+}
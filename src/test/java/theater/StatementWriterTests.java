@@ -0,0 +1,77 @@
+package theater;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+
+public class StatementWriterTests {
+
+    private static List<StatementPrinter> printers() {
+        Map<String, Play> plays = new HashMap<>();
+        plays.put("hamlet", new Play("Hamlet", "tragedy"));
+        plays.put("as-like", new Play("Comme il vous plaira — café 🎭", "comedy"));
+        plays.put("odd", new Play("Broken \ud83c and \udfad surrogates", "tragedy"));
+        List<Performance> performances = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            performances.add(new Performance("hamlet", 55 + i));
+            performances.add(new Performance("as-like", 35));
+            performances.add(new Performance("odd", 40));
+        }
+        Invoice invoice = new Invoice("Künde 😀", performances);
+        List<StatementPrinter> printers = new ArrayList<>();
+        printers.add(new StatementPrinter(invoice, plays));
+        printers.add(new HTMLStatementPrinter(invoice, plays));
+        return printers;
+    }
+
+    @Test
+    public void streamOutputMatchesStringPath() throws IOException {
+        for (StatementPrinter printer : printers()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            printer.writeTo(out);
+            assertArrayEquals(printer.statement().getBytes(StandardCharsets.UTF_8), out.toByteArray());
+        }
+    }
+
+    @Test
+    public void channelOutputMatchesStringPathWithTinyReusedBuffer() throws IOException {
+        StatementWriter writer = new StatementWriter(5);
+        for (StatementPrinter printer : printers()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writer.write(printer, Channels.newChannel(out));
+            assertArrayEquals(printer.statement().getBytes(StandardCharsets.UTF_8), out.toByteArray());
+        }
+    }
+
+    @Test
+    public void reusesTheThreadsWriterUnlessItIsBusy() throws IOException {
+        StatementWriter writer = StatementWriter.forCurrentThread();
+        assertSame(writer, StatementWriter.forCurrentThread());
+
+        Map<String, Play> plays = Map.of("hamlet", new Play("Hamlet", "tragedy"));
+        Invoice invoice = new Invoice("BigCo", List.of(new Performance("hamlet", 55)));
+        StatementPrinter printer = new StatementPrinter(invoice, plays);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(new StatementPrinter(invoice, plays) {
+            @Override
+            public void appendTo(Appendable destination) throws IOException {
+                assertNotSame(writer, StatementWriter.forCurrentThread());
+                super.appendTo(destination);
+            }
+        }, out);
+        assertArrayEquals(printer.statement().getBytes(StandardCharsets.UTF_8), out.toByteArray());
+        assertSame(writer, StatementWriter.forCurrentThread());
+    }
+}